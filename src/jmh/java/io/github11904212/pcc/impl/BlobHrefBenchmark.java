@@ -0,0 +1,69 @@
+package io.github11904212.pcc.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compares {@link BlobHref#parse(String)} with the former parsing of an asset href,
+ * which created a {@link URL}, split the host and path with regular expressions and removed the query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlobHrefBenchmark {
+
+    @Param({
+            "https://sentinel2l2a01.blob.core.windows.net/sentinel2-l2/10/S/EG/2022/08/10/" +
+                    "S2B_MSIL2A_20220810T183919_N0400_R070_T10SEG_20220811T235540.SAFE/GRANULE/" +
+                    "L2A_T10SEG_A028324_20220810T184635/IMG_DATA/R10m/T10SEG_20220810T183919_B04_10m.tif",
+            "https://landsateuwest.blob.core.windows.net/landsat-c2/level-2/standard/oli-tirs/2022/044/034/" +
+                    "LC09_L2SP_044034_20220808_20220810_02_T1/LC09_L2SP_044034_20220808_20220810_02_T1_SR_B4.TIF" +
+                    "?st=2022-08-10T12%3A00%3A00Z&se=2022-08-11T12%3A45%3A00Z&sp=rl&sv=2021-06-08&sr=c&sig=abc",
+            "https://planetarycomputer.microsoft.com/api/data/v1/item/preview.png" +
+                    "?collection=sentinel-2-l2a&item=S2B_MSIL2A_20220810T183919_R070_T10SEG_20220811T235540"
+    })
+    public String href;
+
+    @Benchmark
+    public BlobHref blobHref() throws MalformedURLException {
+        return BlobHref.parse(href);
+    }
+
+    @Benchmark
+    public void legacyUrl(Blackhole blackhole) throws MalformedURLException {
+        var url = new URL(href);
+
+        if (!url.getHost().endsWith(ResourceSigner.BLOB_STORAGE_DOMAIN)) {
+            blackhole.consume(url.toString());
+            return;
+        }
+
+        var hostParts = url.getHost().split(ResourceSigner.BLOB_STORAGE_DOMAIN);
+        var pathParts = url.getPath().split("/");
+
+        var urlStr = url.toString();
+        if (url.getQuery() != null) {
+            urlStr = urlStr.replace("?" + url.getQuery(), "");
+        }
+
+        blackhole.consume(hostParts[0]);
+        blackhole.consume(pathParts[1]);
+        blackhole.consume(urlStr);
+    }
+}
@@ -0,0 +1,96 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.java.stac.client.core.Asset;
+import io.github11904212.java.stac.client.core.Item;
+import io.github11904212.java.stac.client.core.impl.AssetImpl;
+import io.github11904212.java.stac.client.core.impl.ItemImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * signs a sentinel-2 like item with 20 assets, of which only three are read, eagerly and lazily.
+ * all tokens are cached, so the difference is the parsing, lookup and href building of the unused assets.
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="LazySigningBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazySigningBenchmark {
+
+    private static final String[] BANDS = {
+            "AOT", "B01", "B02", "B03", "B04", "B05", "B06", "B07", "B08", "B09",
+            "B11", "B12", "B8A", "SCL", "WVP", "visual", "preview", "safe-manifest", "granule-metadata", "product-metadata"
+    };
+    private static final String[] USED_BANDS = {"B04", "B08", "SCL"};
+
+    private MockSasApi mockSasApi;
+    private ResourceSigner eagerSigner;
+    private ResourceSigner lazySigner;
+    private Map<String, Asset> assets;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        mockSasApi = MockSasApi.start();
+
+        var tokenManager = new TokenManager(new PCClientConfig(null, mockSasApi.getUrl()));
+        eagerSigner = new ResourceSigner(tokenManager, null, false);
+        lazySigner = new ResourceSigner(tokenManager, null, true);
+
+        assets = new LinkedHashMap<>();
+        for (var band : BANDS) {
+            var href = "https://sentinel2l2a01.blob.core.windows.net/sentinel2-l2/10/S/EG/2022/08/10/" +
+                    "S2B_MSIL2A_20220810T183919_N0400_R070_T10SEG_20220811T235540.SAFE/GRANULE/" +
+                    "L2A_T10SEG_A028324_20220810T184635/IMG_DATA/R10m/T10SEG_20220810T183919_" + band + "_10m.tif";
+            assets.put(band, new AssetImpl(href, band, band, "image/tiff", Collections.emptyList()));
+        }
+        // cache the token
+        eagerSigner.signInPlace(creatItem());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        mockSasApi.shutdown();
+    }
+
+    @Benchmark
+    public void eager(Blackhole blackhole) throws IOException {
+        readUsedBands(eagerSigner.signInPlace(creatItem()), blackhole);
+    }
+
+    @Benchmark
+    public void lazy(Blackhole blackhole) throws IOException {
+        readUsedBands(lazySigner.signInPlace(creatItem()), blackhole);
+    }
+
+    private Item creatItem() {
+        return new ItemImpl("1.0.0", Collections.emptyList(), Collections.emptyList(), new HashMap<>(assets), "sentinel-2-l2a");
+    }
+
+    private static void readUsedBands(Item item, Blackhole blackhole) {
+        for (var band : USED_BANDS) {
+            blackhole.consume(item.getAssets().get(band).getHref());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.github11904212.pcc.impl;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * a local sas-api for the benchmarks, which answers every request with the same token valid for an hour.
+ */
+class MockSasApi {
+
+    static final String DEFAULT_TOKEN = "st=2022-01-01&se=2022-01-02&sp=rl&sv=2020-06-12&sr=c&sig=benchmark";
+
+    private static final String TOKEN_TEMPLATE = "{" +
+            "\"msft:expiry\": \"%s\"," +
+            "\"token\": \"%s\"" +
+            "}";
+
+    private final MockWebServer server;
+
+    private MockSasApi(MockWebServer server) {
+        this.server = server;
+    }
+
+    /**
+     * starts a sas-api which returns the {@link #DEFAULT_TOKEN}.
+     * @return the started sas-api.
+     * @throws IOException if the server could not be started.
+     */
+    static MockSasApi start() throws IOException {
+        return start(DEFAULT_TOKEN);
+    }
+
+    /**
+     * starts a sas-api which returns the given token.
+     * @param token the token to return.
+     * @return the started sas-api.
+     * @throws IOException if the server could not be started.
+     */
+    static MockSasApi start(String token) throws IOException {
+        var body = String.format(TOKEN_TEMPLATE,
+                ZonedDateTime.now().plusHours(1).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME),
+                token
+        );
+        var server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setBody(body)
+                        .addHeader("Content-Type", "application/json");
+            }
+        });
+        server.start();
+        return new MockSasApi(server);
+    }
+
+    URL getUrl() {
+        return server.url("").url();
+    }
+
+    void shutdown() throws IOException {
+        server.shutdown();
+    }
+}
@@ -0,0 +1,76 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.pcc.dto.SasToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compares the per-fetch latency of the pooled {@link SasClient} with the former
+ * {@code mapper.readValue(URL)} fetch, when tokens for many containers are requested.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SasClientBenchmark {
+
+    @Param({"1", "20"})
+    public int containerCount;
+
+    private MockSasApi mockSasApi;
+    private SasClient sasClient;
+    private ObjectMapper mapper;
+    private URL sasEndpoint;
+    private int nextContainer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        mockSasApi = MockSasApi.start();
+
+        sasEndpoint = mockSasApi.getUrl();
+        sasClient = new SasClient(new PCClientConfig(null, sasEndpoint));
+        mapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        mockSasApi.shutdown();
+    }
+
+    @Benchmark
+    public SasToken fetchWithSasClient() throws IOException {
+        return sasClient.fetchToken("storage1", nextContainer());
+    }
+
+    @Benchmark
+    public SasToken fetchWithUrl() throws IOException {
+        var url = new URL(sasEndpoint + String.format("token/%s/%s", "storage1", nextContainer()));
+        return mapper.readValue(url, SasToken.class);
+    }
+
+    private String nextContainer() {
+        nextContainer = (nextContainer + 1) % containerCount;
+        return "container" + nextContainer;
+    }
+}
@@ -0,0 +1,104 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.java.stac.client.core.Asset;
+import io.github11904212.java.stac.client.core.impl.AssetImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compares {@link SignedAssetImpl} with {@link CompactSignedAsset}. the benchmark measures the signing of an asset,
+ * run it with the gc profiler for the allocated bytes per asset. after each trial the retained heap of
+ * {@link #RETAINED_ASSETS} signed assets is measured with JOL, excluding the unsigned assets and the tokens
+ * of the cache, and printed per asset.
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="SignedAssetFootprintBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignedAssetFootprintBenchmark {
+
+    /**
+     * a token of realistic length, the sas-api returns tokens of several hundred characters.
+     */
+    private static final String TOKEN = "st=2022-08-10T11%3A03%3A55Z&se=2022-08-11T11%3A48%3A55Z&sp=rl&sv=2021-06-08" +
+            "&sr=c&skoid=c85c15d6-d1ae-42d4-af60-e2ca0f81359b&sktid=72f988bf-86f1-41af-91ab-2d7cd011db47" +
+            "&skt=2022-08-11T10%3A50%3A26Z&ske=2022-08-18T10%3A50%3A26Z&sks=b&skv=2021-06-08" +
+            "&sig=ZbQa3bS0g4r8vDf1S6iZ4Vx2QeP7Nn9KcTq5Wm3Jh8A%3D";
+
+    private static final int RETAINED_ASSETS = 100_000;
+    private static final String ACCOUNT = "sentinel2l2a01";
+    private static final String CONTAINER = "sentinel2-l2";
+
+    @Param({"full", "compact"})
+    public String representation;
+
+    private MockSasApi mockSasApi;
+    private TokenManager tokenManager;
+    private ResourceSigner resourceSigner;
+    private List<Asset> unsignedAssets;
+    private int nextAsset;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        mockSasApi = MockSasApi.start(TOKEN);
+
+        tokenManager = new TokenManager(new PCClientConfig(null, mockSasApi.getUrl()));
+        resourceSigner = new ResourceSigner(
+                tokenManager, null, false, null, "compact".equals(representation)
+        );
+
+        unsignedAssets = new ArrayList<>(RETAINED_ASSETS);
+        for (int i = 0; i < RETAINED_ASSETS; i++) {
+            var href = "https://" + ACCOUNT + ".blob.core.windows.net/" + CONTAINER + "/10/S/EG/2022/08/10/" +
+                    "S2B_MSIL2A_20220810T183919_N0400_R070_T10SEG_20220811T235540.SAFE/GRANULE/" +
+                    "L2A_T10SEG_A028324_20220810T184635/IMG_DATA/R10m/T10SEG_" + i + "_B04_10m.tif";
+            unsignedAssets.add(new AssetImpl(href, "B04", "Band 4 - Red", "image/tiff", Collections.emptyList()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        List<Asset> signedAssets = new ArrayList<>(RETAINED_ASSETS);
+        for (var asset : unsignedAssets) {
+            signedAssets.add(resourceSigner.sign(asset));
+        }
+
+        // the unsigned assets and the cached token are shared with the rest of the application
+        var sharedObjects = GraphLayout.parseInstance(unsignedAssets, tokenManager.getToken(ACCOUNT, CONTAINER));
+        var retained = GraphLayout.parseInstance(signedAssets).subtract(sharedObjects);
+        System.out.printf("%n%s: %d bytes retained per signed asset%n",
+                representation,
+                retained.totalSize() / RETAINED_ASSETS
+        );
+
+        mockSasApi.shutdown();
+    }
+
+    @Benchmark
+    public Asset sign() throws IOException {
+        nextAsset = (nextAsset + 1) % RETAINED_ASSETS;
+        return resourceSigner.sign(unsignedAssets.get(nextAsset));
+    }
+}
@@ -0,0 +1,174 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.SignedAsset;
+import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.pcc.dto.SasToken;
+import io.github11904212.java.stac.client.core.Asset;
+import io.github11904212.java.stac.client.core.Item;
+import io.github11904212.java.stac.client.core.impl.AssetImpl;
+import io.github11904212.java.stac.client.core.impl.ItemImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the signing hot path over synthetic items with 1 to 50 assets spread over up to 20 storage containers.
+ * every fifth asset (asset4, asset9, ...) has an href outside of the blob storage, which is passed through unsigned,
+ * so an item with a single asset only has a blob asset and an item with 10 assets has 8.
+ * the blob assets are spread round-robin over the containers, an item can not use more containers than it has
+ * blob assets. the combinations with more containers than blob assets therefore sign the same items as with
+ * that number of containers, they only differ in the size of the token cache and in getTokenCacheHit,
+ * which cycles over all containers.
+ * all tokens are cached before the measurement, so the results show the parsing, token lookup, href building
+ * and allocation of the signing, not the sas-api.
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="SigningBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SigningBenchmark {
+
+    private static final int ITEMS_PER_BATCH = 100;
+
+    @Param({"1", "10", "50"})
+    private int assetsPerItem;
+
+    @Param({"1", "5", "20"})
+    private int containers;
+
+    private MockSasApi mockSasApi;
+    private ExecutorService executor;
+    private TokenManager tokenManager;
+    private ResourceSigner signer;
+
+    private Map<String, Asset> assets;
+    private Asset[] assetArray;
+    private StorageContainer[] storageContainers;
+    private SignedLink signedLink;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        mockSasApi = MockSasApi.start();
+        executor = Executors.newFixedThreadPool(4);
+
+        tokenManager = new TokenManager(new PCClientConfig(null, mockSasApi.getUrl()));
+        signer = new ResourceSigner(tokenManager);
+
+        assets = new LinkedHashMap<>();
+        for (int i = 0; i < assetsPerItem; i++) {
+            assets.put("asset" + i, creatAsset(i));
+        }
+        assetArray = assets.values().toArray(new Asset[0]);
+
+        storageContainers = new StorageContainer[containers];
+        for (int c = 0; c < containers; c++) {
+            storageContainers[c] = new StorageContainer(account(c), container(c));
+        }
+        // cache the tokens of all containers
+        tokenManager.prefetch(List.of(storageContainers), executor);
+
+        signedLink = signer.signHref(assetArray[0].getHref());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        mockSasApi.shutdown();
+    }
+
+    @Benchmark
+    public SignedAsset sign() throws IOException {
+        return signer.sign(assetArray[nextIndex(assetArray.length)]);
+    }
+
+    @Benchmark
+    public Item signInPlace() throws IOException {
+        return signer.signInPlace(creatItem());
+    }
+
+    @Benchmark
+    public List<Item> signInPlaceBatch() throws IOException {
+        List<Item> items = new ArrayList<>(ITEMS_PER_BATCH);
+        for (int i = 0; i < ITEMS_PER_BATCH; i++) {
+            items.add(creatItem());
+        }
+        return signer.signInPlace(items, executor);
+    }
+
+    /**
+     * the copy of the item which every signInPlace benchmark includes.
+     */
+    @Benchmark
+    public Item creatItemBaseline() {
+        return creatItem();
+    }
+
+    @Benchmark
+    public SasToken getTokenCacheHit() throws IOException {
+        var storageContainer = storageContainers[nextIndex(storageContainers.length)];
+        return tokenManager.getToken(storageContainer.getAccount(), storageContainer.getContainer());
+    }
+
+    @Benchmark
+    public SignedAsset signedAssetConstruction() {
+        return new SignedAssetImpl(assetArray[0], signedLink);
+    }
+
+    private int nextIndex(int length) {
+        var index = next;
+        next = index + 1 < length ? index + 1 : 0;
+        return index;
+    }
+
+    private Item creatItem() {
+        return new ItemImpl("1.0.0", Collections.emptyList(), Collections.emptyList(), new HashMap<>(assets), "collection");
+    }
+
+    private Asset creatAsset(int index) {
+        String href;
+        if (index % 5 == 4) {
+            href = "https://example.com/thumbnails/item/asset" + index + ".png";
+        } else {
+            // counts the blob assets only, so that every container is used once there are enough blob assets
+            var blobIndex = index - index / 5;
+            var c = blobIndex % containers;
+            href = "https://" + account(c) + ".blob.core.windows.net/" + container(c) +
+                    "/10/S/EG/2022/08/10/S2B_MSIL2A_20220810T183919_N0400_R070_T10SEG_20220811T235540.SAFE/" +
+                    "IMG_DATA/R10m/T10SEG_20220810T183919_asset" + index + "_10m.tif";
+        }
+        return new AssetImpl(href, "asset" + index, "asset " + index, "image/tiff", Collections.emptyList());
+    }
+
+    private static String account(int c) {
+        return "account" + (c % 4);
+    }
+
+    private static String container(int c) {
+        return "container" + c;
+    }
+}
@@ -0,0 +1,85 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.pcc.dto.SasToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * measures cache hits of {@link TokenManager#getToken(String, String)} against the former lookup,
+ * which concatenated a key and compared {@link ZonedDateTime}s.
+ * run with the gc profiler to see the allocations per lookup:
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="TokenManagerBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenManagerBenchmark {
+
+    private static final String ACCOUNT = "sentinel2l2a01";
+    private static final String[] CONTAINERS = {"sentinel2-l2", "sentinel2-l1c", "landsat-c2", "naip"};
+
+    private MockSasApi mockSasApi;
+    private TokenManager tokenManager;
+    private Map<String, SasToken> legacyCache;
+    private int nextContainer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        mockSasApi = MockSasApi.start();
+
+        tokenManager = new TokenManager(new PCClientConfig(null, mockSasApi.getUrl()));
+        legacyCache = new HashMap<>();
+        for (var container : CONTAINERS) {
+            var token = tokenManager.getToken(ACCOUNT, container);
+            legacyCache.put(ACCOUNT + "/" + container, token);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        mockSasApi.shutdown();
+    }
+
+    @Benchmark
+    public SasToken cachedToken() throws IOException {
+        return tokenManager.getToken(ACCOUNT, nextContainer());
+    }
+
+    @Benchmark
+    public SasToken legacyCachedToken() {
+        String tokenKey = ACCOUNT + "/" + nextContainer();
+        if (
+                legacyCache.containsKey(tokenKey)
+                        && legacyCache.get(tokenKey)
+                        .getMsftExpiry().isAfter(ZonedDateTime.now().plusMinutes(1))
+        ) {
+            return legacyCache.get(tokenKey);
+        }
+        return null;
+    }
+
+    private String nextContainer() {
+        nextContainer = (nextContainer + 1) % CONTAINERS.length;
+        return CONTAINERS[nextContainer];
+    }
+}
@@ -0,0 +1,122 @@
+package io.github11904212.pcc;
+
+import io.github11904212.java.stac.client.core.Asset;
+import io.github11904212.java.stac.client.core.Catalog;
+import io.github11904212.java.stac.client.core.Collection;
+import io.github11904212.java.stac.client.core.Item;
+import io.github11904212.java.stac.client.search.ItemCollection;
+import io.github11904212.java.stac.client.search.dto.QueryParameter;
+import io.github11904212.pcc.dto.AssetSelection;
+import io.github11904212.pcc.dto.ItemBatch;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * the non-blocking counterpart of the {@link PlanetaryComputerClient}. every call runs on the executor of the client
+ * and returns immediately, errors complete the future exceptionally with the exception of the blocking method.
+ * cancelling a returned future interrupts its running call, which aborts its requests against the stac-api and
+ * the sas-api. futures derived from a returned future, e.g. by thenApply(), do not propagate their cancellation.
+ */
+public interface AsyncPlanetaryComputerClient {
+
+    /**
+     * the blocking client performing the calls.
+     * @return the blocking client.
+     */
+    PlanetaryComputerClient getBlockingClient();
+
+    /**
+     * see {@link PlanetaryComputerClient#getCatalog()}.
+     * @return the future catalog.
+     */
+    CompletableFuture<Catalog> getCatalog();
+
+    /**
+     * see {@link PlanetaryComputerClient#getCollection(String)}.
+     * @param id the id of the collection.
+     * @return the future collection, empty if it does not exist.
+     */
+    CompletableFuture<Optional<Collection>> getCollection(String id);
+
+    /**
+     * see {@link PlanetaryComputerClient#getItem(String, String)}.
+     * @param collectionId the id of the collection.
+     * @param itemId the id of the item.
+     * @return the future signed item, empty if it does not exist.
+     */
+    CompletableFuture<Optional<Item>> getItem(String collectionId, String itemId);
+
+    /**
+     * see {@link PlanetaryComputerClient#getItems(String, java.util.Collection)}.
+     * @param collectionId the id of the collection.
+     * @param itemIds the ids of the items.
+     * @return the future signed items and missing ids.
+     */
+    CompletableFuture<ItemBatch> getItems(String collectionId, java.util.Collection<String> itemIds);
+
+    /**
+     * see {@link PlanetaryComputerClient#getItems(String, java.util.Collection, AssetSelection)}.
+     * @param collectionId the id of the collection.
+     * @param itemIds the ids of the items.
+     * @param selection the assets to sign.
+     * @return the future signed items and missing ids.
+     */
+    CompletableFuture<ItemBatch> getItems(
+            String collectionId,
+            java.util.Collection<String> itemIds,
+            AssetSelection selection
+    );
+
+    /**
+     * see {@link PlanetaryComputerClient#search(QueryParameter)}.
+     * @param queryParameter the search parameters.
+     * @return the future signed search results.
+     */
+    CompletableFuture<ItemCollection> search(QueryParameter queryParameter);
+
+    /**
+     * see {@link PlanetaryComputerClient#search(QueryParameter, AssetSelection)}.
+     * @param queryParameter the search parameters.
+     * @param selection the assets to sign.
+     * @return the future signed search results.
+     */
+    CompletableFuture<ItemCollection> search(QueryParameter queryParameter, AssetSelection selection);
+
+    /**
+     * see {@link PlanetaryComputerClient#sign(Item)}.
+     * @param item the item to sign.
+     * @return the future of the same item but with signed assets.
+     */
+    CompletableFuture<Item> sign(Item item);
+
+    /**
+     * see {@link PlanetaryComputerClient#sign(Item, AssetSelection)}.
+     * @param item the item to sign.
+     * @param selection the assets to sign.
+     * @return the future of the same item but with signed assets.
+     */
+    CompletableFuture<Item> sign(Item item, AssetSelection selection);
+
+    /**
+     * see {@link PlanetaryComputerClient#sign(ItemCollection)}.
+     * @param itemCollection the items to sign.
+     * @return the future of the same item collection but with signed assets.
+     */
+    CompletableFuture<ItemCollection> sign(ItemCollection itemCollection);
+
+    /**
+     * see {@link PlanetaryComputerClient#sign(ItemCollection, AssetSelection)}.
+     * @param itemCollection the items to sign.
+     * @param selection the assets to sign.
+     * @return the future of the same item collection but with signed assets.
+     */
+    CompletableFuture<ItemCollection> sign(ItemCollection itemCollection, AssetSelection selection);
+
+    /**
+     * see {@link PlanetaryComputerClient#sign(Asset)}.
+     * @param asset the asset to sign.
+     * @return the future signed asset.
+     */
+    CompletableFuture<SignedAsset> sign(Asset asset);
+}
@@ -0,0 +1,54 @@
+package io.github11904212.pcc;
+
+/**
+ * receives timings and counts of the work of a {@link PlanetaryComputerClient}, e.g. to report them to a metrics
+ * library. all methods do nothing by default, so that only the needed ones have to be implemented.
+ * the methods are called synchronously by the threads doing the work, possibly concurrently,
+ * and must return quickly. register a listener with
+ * {@link io.github11904212.pcc.dto.PCClientConfig#setMetricsListener(MetricsListener)}.
+ */
+public interface MetricsListener {
+
+    /**
+     * a sas token was served from the token cache.
+     * @param account the storage account of the token.
+     * @param container the container of the token.
+     */
+    default void onTokenCacheHit(String account, String container) {
+    }
+
+    /**
+     * a sas token was not in the token cache or expires too soon.
+     * @param account the storage account of the token.
+     * @param container the container of the token.
+     */
+    default void onTokenCacheMiss(String account, String container) {
+    }
+
+    /**
+     * a sas token was requested from the sas-api, including the retries of the request.
+     * @param account the storage account of the token.
+     * @param container the container of the token.
+     * @param durationNanos the time of the request in nanoseconds.
+     * @param success false if no token could be fetched.
+     */
+    default void onTokenFetch(String account, String container, long durationNanos, boolean success) {
+    }
+
+    /**
+     * one or several items were signed by one call.
+     * @param itemCount the number of items.
+     * @param assetCount the number of signed assets, lazily signed assets are counted when they are created.
+     * @param durationNanos the time of the call in nanoseconds, including fetching the missing tokens.
+     */
+    default void onAssetsSigned(int itemCount, int assetCount, long durationNanos) {
+    }
+
+    /**
+     * a page of search results was read from the stac-api or the search cache.
+     * @param itemCount the number of items of the page.
+     * @param durationNanos the time of reading the page in nanoseconds, without signing its items.
+     */
+    default void onSearchPage(int itemCount, long durationNanos) {
+    }
+}
@@ -5,8 +5,18 @@ import io.github11904212.java.stac.client.StacClient;
 import io.github11904212.java.stac.client.core.Asset;
 import io.github11904212.java.stac.client.core.Item;
 import io.github11904212.java.stac.client.search.ItemCollection;
+import io.github11904212.java.stac.client.search.dto.QueryParameter;
+import io.github11904212.pcc.dto.AssetSelection;
+import io.github11904212.pcc.dto.CacheStats;
+import io.github11904212.pcc.dto.ItemBatch;
+import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.pcc.dto.SearchPartitioning;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
 
 /**
  * signs the resources of the planetary computer with a sas token to make them retrievable.
@@ -21,6 +31,27 @@ public interface PlanetaryComputerClient extends StacClient {
      */
     StacClient getStacClientInstance();
 
+    /**
+     * fetches several items of a collection by their ids and signs them in one batch.
+     * the items are fetched by searches filtering chunks of the ids, a few searches at once,
+     * which is much faster than one request per item.
+     * @param collectionId the id of the collection
+     * @param itemIds the ids of the items, duplicate ids are fetched once
+     * @return the signed items in the order of the ids and the ids which do not exist
+     * @throws IOException if an error occurs.
+     */
+    ItemBatch getItems(String collectionId, Collection<String> itemIds) throws IOException;
+
+    /**
+     * like {@link #getItems(String, Collection)}, but only signs the selected {@link Asset}s.
+     * @param collectionId the id of the collection
+     * @param itemIds the ids of the items, duplicate ids are fetched once
+     * @param selection the assets to sign, if it is pruning the other assets are removed from the items
+     * @return the signed items in the order of the ids and the ids which do not exist
+     * @throws IOException if an error occurs.
+     */
+    ItemBatch getItems(String collectionId, Collection<String> itemIds, AssetSelection selection) throws IOException;
+
     /**
      * signs an {@link Item} with a sas token, all {@link Asset}s of the item will be replaced by {@link SignedAsset}
      * @param item to sign
@@ -29,6 +60,15 @@ public interface PlanetaryComputerClient extends StacClient {
      */
     Item sign(Item item) throws IOException;
 
+    /**
+     * signs the selected {@link Asset}s of an {@link Item} with a sas token.
+     * @param item to sign
+     * @param selection the assets to sign, if it is pruning the other assets are removed from the item
+     * @return the same item but with signed assets
+     * @throws IOException if an error occurs.
+     */
+    Item sign(Item item, AssetSelection selection) throws IOException;
+
     /**
      * signs all {@link Item}s of an {@link ItemCollection} with a sas token,
      * all {@link Asset}s of each {@link Item} the item will be replaced by {@link SignedAsset}
@@ -38,6 +78,89 @@ public interface PlanetaryComputerClient extends StacClient {
      */
     ItemCollection sign(ItemCollection itemCollection) throws IOException;
 
+    /**
+     * signs the selected {@link Asset}s of all {@link Item}s of an {@link ItemCollection} with a sas token.
+     * @param itemCollection to sign
+     * @param selection the assets to sign, if it is pruning the other assets are removed from the items
+     * @return the same itemCollection but with signed assets
+     * @throws IOException if an error occurs.
+     */
+    ItemCollection sign(ItemCollection itemCollection, AssetSelection selection) throws IOException;
+
+    /**
+     * searches the planetary computer and signs the selected {@link Asset}s of the found items.
+     * @param queryParameter the search parameters
+     * @param selection the assets to sign, if it is pruning the other assets are removed from the items
+     * @return the signed search results
+     * @throws IOException if an error occurs.
+     * @throws InterruptedException if the search is interrupted.
+     */
+    ItemCollection search(QueryParameter queryParameter, AssetSelection selection)
+            throws IOException, InterruptedException;
+
+    /**
+     * searches the planetary computer and streams the signed items of all pages.
+     * the next pages are read and signed in the background while the stream is consumed,
+     * only a bounded number of pages is held in memory.
+     * the stream must be closed, e.g. with try-with-resources, if it may not be fully consumed, e.g. after
+     * {@code limit(n)}. otherwise a background task keeps waiting with the buffered pages until the stream
+     * is garbage collected.
+     * @param queryParameter the search parameters
+     * @return a lazy stream of the signed items
+     * @throws java.io.UncheckedIOException from the stream operations, if a page could not be read or signed.
+     */
+    Stream<Item> searchAll(QueryParameter queryParameter);
+
+    /**
+     * like {@link #searchAll(QueryParameter)}, but only signs the selected {@link Asset}s.
+     * @param queryParameter the search parameters
+     * @param selection the assets to sign, if it is pruning the other assets are removed from the items
+     * @return a lazy stream of the signed items
+     */
+    Stream<Item> searchAll(QueryParameter queryParameter, AssetSelection selection);
+
+    /**
+     * splits a search into partitions by its datetime interval and optionally its bbox, searches the partitions
+     * concurrently and streams their signed items. items on the boundaries of partitions are returned once,
+     * only their ids are kept while the search runs. the items are not ordered. like the stream of {@link #searchAll(QueryParameter)}, the stream must be closed
+     * if it may not be fully consumed.
+     * @param queryParameter the search parameters, with a closed datetime interval or a bbox to split
+     * @param partitioning the partitions and the number of partitions searched at once
+     * @return a lazy stream of the distinct signed items
+     * @throws IllegalArgumentException if the search can not be partitioned as requested.
+     */
+    Stream<Item> searchPartitioned(QueryParameter queryParameter, SearchPartitioning partitioning);
+
+    /**
+     * like {@link #searchPartitioned(QueryParameter, SearchPartitioning)}, but only signs the selected {@link Asset}s.
+     * @param queryParameter the search parameters, with a closed datetime interval or a bbox to split
+     * @param partitioning the partitions and the number of partitions searched at once
+     * @param selection the assets to sign, if it is pruning the other assets are removed from the items
+     * @return a lazy stream of the distinct signed items
+     */
+    Stream<Item> searchPartitioned(
+            QueryParameter queryParameter,
+            SearchPartitioning partitioning,
+            AssetSelection selection
+    );
+
+    /**
+     * searches the planetary computer and publishes the signed items of all pages to reactive subscribers.
+     * every subscriber runs its own search. pages are only read and signed as far as the subscriber requested items,
+     * a cancellation stops the search, including a running page request.
+     * @param queryParameter the search parameters
+     * @return a publisher of the signed items
+     */
+    Flow.Publisher<Item> searchPublisher(QueryParameter queryParameter);
+
+    /**
+     * like {@link #searchPublisher(QueryParameter)}, but only signs the selected {@link Asset}s.
+     * @param queryParameter the search parameters
+     * @param selection the assets to sign, if it is pruning the other assets are removed from the items
+     * @return a publisher of the signed items
+     */
+    Flow.Publisher<Item> searchPublisher(QueryParameter queryParameter, AssetSelection selection);
+
     /**
      * signs a single {@link Asset}
      * @param asset to sign
@@ -46,4 +169,32 @@ public interface PlanetaryComputerClient extends StacClient {
      */
     SignedAsset sign(Asset asset) throws IOException;
 
+    /**
+     * fetches the sas tokens of the given collections in parallel and stores them in the token cache,
+     * so that signing the first search results does not wait for the sas-api.
+     * the storage account and container of a collection are taken from its metadata.
+     * @param collectionIds the ids of the collections.
+     * @throws IOException if a collection does not exist or a token could not be fetched.
+     */
+    void warmTokenCache(List<String> collectionIds) throws IOException;
+
+    /**
+     * gets the statistics of the sas token cache, e.g. to determine an appropriate cache size.
+     * @return a snapshot of the {@link CacheStats}.
+     */
+    CacheStats getTokenCacheStats();
+
+    /**
+     * gets the statistics of the search result cache, see {@link PCClientConfig#setSearchCacheTimeToLive}.
+     * @return a snapshot of the {@link CacheStats}, all counts are 0 if the cache is disabled.
+     */
+    CacheStats getSearchCacheStats();
+
+    /**
+     * gets the statistics of the catalog and collection metadata cache,
+     * see {@link PCClientConfig#setMetadataCacheTimeToLive}.
+     * @return a snapshot of the {@link CacheStats}, all counts are 0 if the cache is disabled.
+     */
+    CacheStats getMetadataCacheStats();
+
 }
@@ -0,0 +1,122 @@
+package io.github11904212.pcc.dto;
+
+import io.github11904212.java.stac.client.core.Asset;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * selects the assets of an item which are signed. the other assets are left unsigned,
+ * or removed from the item if the selection is {@link #pruning()}.
+ */
+public class AssetSelection {
+
+    private static final AssetSelection ALL = new AssetSelection((key, asset) -> true, false);
+
+    private final BiPredicate<String, Asset> predicate;
+    private final boolean prune;
+
+    private AssetSelection(BiPredicate<String, Asset> predicate, boolean prune) {
+        this.predicate = predicate;
+        this.prune = prune;
+    }
+
+    /**
+     * selects all assets.
+     * @return the selection.
+     */
+    public static AssetSelection all() {
+        return ALL;
+    }
+
+    /**
+     * selects the assets with the given keys, e.g. "B04" or "visual".
+     * @param keys the asset keys.
+     * @return the selection.
+     */
+    public static AssetSelection keys(Set<String> keys) {
+        var keySet = Set.copyOf(keys);
+        return new AssetSelection((key, asset) -> keySet.contains(key), false);
+    }
+
+    /**
+     * selects the assets with the given keys, e.g. "B04" or "visual".
+     * @param keys the asset keys.
+     * @return the selection.
+     */
+    public static AssetSelection keys(String... keys) {
+        return keys(new HashSet<>(Arrays.asList(keys)));
+    }
+
+    /**
+     * selects the assets which have at least one of the given roles, e.g. "data" or "thumbnail".
+     * @param roles the asset roles.
+     * @return the selection.
+     */
+    public static AssetSelection roles(String... roles) {
+        var roleSet = Set.of(roles);
+        return new AssetSelection((key, asset) -> {
+            var assetRoles = asset.getRoles();
+            if (assetRoles == null) {
+                return false;
+            }
+            for (var role : assetRoles) {
+                if (roleSet.contains(role)) {
+                    return true;
+                }
+            }
+            return false;
+        }, false);
+    }
+
+    /**
+     * selects the assets with one of the given media types, e.g. "image/tiff; application=geotiff".
+     * @param mediaTypes the media types.
+     * @return the selection.
+     */
+    public static AssetSelection mediaTypes(String... mediaTypes) {
+        var mediaTypeSet = Set.of(mediaTypes);
+        return new AssetSelection(
+                (key, asset) -> asset.getType().map(mediaTypeSet::contains).orElse(false),
+                false
+        );
+    }
+
+    /**
+     * selects the assets matching a custom predicate.
+     * @param predicate receives the key and the asset.
+     * @return the selection.
+     */
+    public static AssetSelection matching(BiPredicate<String, Asset> predicate) {
+        return new AssetSelection(predicate, false);
+    }
+
+    /**
+     * a selection which removes the not selected assets from the item,
+     * so that large result sets do not hold unused assets in memory.
+     * @return the pruning selection.
+     */
+    public AssetSelection pruning() {
+        return new AssetSelection(predicate, true);
+    }
+
+    /**
+     * whether not selected assets are removed from the item.
+     * @return true if the assets are removed.
+     */
+    public boolean isPruning() {
+        return prune;
+    }
+
+    /**
+     * tests if an asset is selected.
+     * @param key the key of the asset.
+     * @param asset the asset.
+     * @return true if the asset is signed.
+     */
+    public boolean test(String key, Asset asset) {
+        return predicate.test(key, asset);
+    }
+}
@@ -0,0 +1,106 @@
+package io.github11904212.pcc.dto;
+
+import java.time.Duration;
+
+/**
+ * a snapshot of the statistics of a cache used by the client.
+ */
+public class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long loadCount;
+    private final Duration totalLoadTime;
+    private final long size;
+
+    /**
+     * creat a snapshot of cache statistics.
+     * @param hitCount the number of lookups which were served from the cache.
+     * @param missCount the number of lookups which were not served from the cache.
+     * @param evictionCount the number of entries removed because they expired or the cache was full.
+     * @param loadCount the number of loads of new entries.
+     * @param totalLoadTime the time spent loading new entries.
+     * @param size the number of entries at the time of the snapshot.
+     */
+    public CacheStats(
+            long hitCount,
+            long missCount,
+            long evictionCount,
+            long loadCount,
+            Duration totalLoadTime,
+            long size
+    ) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.loadCount = loadCount;
+        this.totalLoadTime = totalLoadTime;
+        this.size = size;
+    }
+
+    /**
+     * the number of lookups which were served from the cache.
+     * @return the hit count.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * the number of lookups which were not served from the cache.
+     * @return the miss count.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * the ratio of hits to all lookups, 1 if there was no lookup yet.
+     * @return the hit rate.
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * the number of entries removed because they expired or the cache was full.
+     * @return the eviction count.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * the number of loads of new entries.
+     * @return the load count.
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * the time spent loading new entries.
+     * @return the total load time.
+     */
+    public Duration getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * the number of entries at the time of the snapshot.
+     * @return the size.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "CacheStats{hits: %d, misses: %d, evictions: %d, loads: %d, loadTime: %s, size: %d}",
+                hitCount, missCount, evictionCount, loadCount, totalLoadTime, size
+        );
+    }
+}
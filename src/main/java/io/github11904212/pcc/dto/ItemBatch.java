@@ -0,0 +1,48 @@
+package io.github11904212.pcc.dto;
+
+import io.github11904212.java.stac.client.core.Item;
+
+import java.util.List;
+
+/**
+ * the result of fetching several items by their ids.
+ */
+public class ItemBatch {
+
+    private final List<Item> items;
+    private final List<String> missingIds;
+
+    /**
+     * creat a result.
+     * @param items the found items.
+     * @param missingIds the ids which were not found.
+     */
+    public ItemBatch(List<Item> items, List<String> missingIds) {
+        this.items = List.copyOf(items);
+        this.missingIds = List.copyOf(missingIds);
+    }
+
+    /**
+     * the found items, in the order of the requested ids.
+     * @return the signed items.
+     */
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * the requested ids for which no item exists, in the order of the requested ids.
+     * @return the missing ids.
+     */
+    public List<String> getMissingIds() {
+        return missingIds;
+    }
+
+    /**
+     * whether all requested items were found.
+     * @return true if no id is missing.
+     */
+    public boolean isComplete() {
+        return missingIds.isEmpty();
+    }
+}
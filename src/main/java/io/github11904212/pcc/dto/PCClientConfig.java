@@ -1,19 +1,55 @@
 package io.github11904212.pcc.dto;
 
+import io.github11904212.pcc.MetricsListener;
 import io.github11904212.pcc.PlanetaryComputerClient;
 import io.github11904212.pcc.exceptions.MalformedConfigurationException;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
 
 /**
  * contains all important settings for a PlanetaryComputerClient.
  */
 public class PCClientConfig {
 
+    /**
+     * the maximum margin of self-renewing signed assets, half of the usual validity of a sas token.
+     */
+    public static final Duration MAX_ASSET_RENEWAL_MARGIN = Duration.ofMinutes(30);
+
     private final URL stacEndpoint;
     private final URL sasEndpoint;
     private final String subscriptionKey;
+    private Double tokenRefreshAhead = null;
+    private Duration tokenRefreshIdleTimeout = Duration.ofMinutes(10);
+    private HttpClient httpClient = null;
+    private Duration sasConnectTimeout = Duration.ofSeconds(10);
+    private Duration sasRequestTimeout = Duration.ofSeconds(30);
+    private Duration stacConnectTimeout = Duration.ofSeconds(10);
+    private Duration stacRequestTimeout = Duration.ofSeconds(60);
+    private int tokenCacheMaximumSize = 1000;
+    private int sasMaxRetries = 3;
+    private Duration sasRetryBaseDelay = Duration.ofMillis(500);
+    private Duration sasRetryMaxDelay = Duration.ofSeconds(30);
+    private Double sasRequestsPerSecond = null;
+    private Executor executor = null;
+    private boolean parallelSigning = false;
+    private Executor signingExecutor = null;
+    private boolean lazySigning = false;
+    private Duration assetRenewalMargin = null;
+    private boolean compactSignedAssets = false;
+    private int searchPrefetchPages = 2;
+    private Duration searchCacheTimeToLive = null;
+    private long searchCacheMaximumBytes = 64L * 1024 * 1024;
+    private int itemFetchParallelism = 4;
+    private Duration metadataCacheTimeToLive = null;
+    private Double metadataCacheRefreshAhead = null;
+    private int metadataCacheMaximumSize = 1000;
+    private Executor asyncExecutor = null;
+    private MetricsListener metricsListener = null;
 
     /**
      * creat a configuration for a {@link PlanetaryComputerClient}
@@ -68,6 +104,530 @@ public class PCClientConfig {
         return subscriptionKey;
     }
 
+    /**
+     * the fraction of a token lifetime after which it is renewed in the background, can be null.
+     * @return the fraction or null if refresh-ahead is disabled.
+     */
+    public Double getTokenRefreshAhead() {
+        return tokenRefreshAhead;
+    }
+
+    /**
+     * enables the renewal of cached sas tokens in the background, so that signing does not wait for the sas-api
+     * while a token is in use. disabled by default.
+     * @param lifetimeFraction the fraction of the token lifetime after which the token is renewed,
+     *                         e.g. 0.75 renews a token valid for 60 minutes after 45 minutes.
+     *                         must be between 0 and 1 (exclusive), null disables the renewal.
+     */
+    public void setTokenRefreshAhead(Double lifetimeFraction) {
+        if (lifetimeFraction != null && (lifetimeFraction <= 0 || lifetimeFraction >= 1)) {
+            throw new IllegalArgumentException("the lifetime fraction must be between 0 and 1");
+        }
+        this.tokenRefreshAhead = lifetimeFraction;
+    }
+
+    /**
+     * the time after which tokens that have not been used are no longer renewed in the background.
+     * @return the idle timeout.
+     */
+    public Duration getTokenRefreshIdleTimeout() {
+        return tokenRefreshIdleTimeout;
+    }
+
+    /**
+     * sets the time after which tokens that have not been used are no longer renewed in the background,
+     * such tokens lapse and are fetched again on their next use. defaults to 10 minutes.
+     * @param idleTimeout the idle timeout.
+     */
+    public void setTokenRefreshIdleTimeout(Duration idleTimeout) {
+        this.tokenRefreshIdleTimeout = idleTimeout;
+    }
+
+    /**
+     * the {@link HttpClient} used for requests against the sas-api, can be null.
+     * @return the custom client or null if a default client is used.
+     */
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * sets a custom {@link HttpClient} for the requests against the sas-api and the metadata requests
+     * against the stac-api which are not performed by the stac-client, e.g. to configure a proxy,
+     * an executor or the preferred http version. the connect timeouts of this configuration are ignored
+     * for a custom client.
+     * @param httpClient the client, null to use a default client.
+     */
+    public void setHttpClient(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * the connect timeout for the sas-api.
+     * @return the timeout.
+     */
+    public Duration getSasConnectTimeout() {
+        return sasConnectTimeout;
+    }
+
+    /**
+     * sets the timeout for connecting to the sas-api. defaults to 10 seconds.
+     * @param connectTimeout the timeout.
+     */
+    public void setSasConnectTimeout(Duration connectTimeout) {
+        this.sasConnectTimeout = connectTimeout;
+    }
+
+    /**
+     * the timeout of a single request against the sas-api.
+     * @return the timeout.
+     */
+    public Duration getSasRequestTimeout() {
+        return sasRequestTimeout;
+    }
+
+    /**
+     * sets the timeout of a single request against the sas-api, including the reading of the response.
+     * defaults to 30 seconds.
+     * @param requestTimeout the timeout.
+     */
+    public void setSasRequestTimeout(Duration requestTimeout) {
+        this.sasRequestTimeout = requestTimeout;
+    }
+
+    /**
+     * the connect timeout for the stac-api.
+     * @return the timeout.
+     */
+    public Duration getStacConnectTimeout() {
+        return stacConnectTimeout;
+    }
+
+    /**
+     * sets the timeout for connecting to the stac-api, for the search pages and the metadata requests
+     * which are not performed by the stac-client. defaults to 10 seconds.
+     * @param connectTimeout the timeout.
+     */
+    public void setStacConnectTimeout(Duration connectTimeout) {
+        this.stacConnectTimeout = connectTimeout;
+    }
+
+    /**
+     * the timeout of a single request against the stac-api.
+     * @return the timeout.
+     */
+    public Duration getStacRequestTimeout() {
+        return stacRequestTimeout;
+    }
+
+    /**
+     * sets the timeout of a single request against the stac-api, e.g. for a page of search results,
+     * including the reading of the response. defaults to 60 seconds.
+     * @param requestTimeout the timeout.
+     */
+    public void setStacRequestTimeout(Duration requestTimeout) {
+        this.stacRequestTimeout = requestTimeout;
+    }
+
+    /**
+     * the maximum number of sas tokens which are cached.
+     * @return the maximum size.
+     */
+    public int getTokenCacheMaximumSize() {
+        return tokenCacheMaximumSize;
+    }
+
+    /**
+     * sets the maximum number of sas tokens which are cached, one token is cached per storage account and container.
+     * if the cache is full, expired tokens and then the least recently used tokens are evicted. defaults to 1000.
+     * @param maximumSize the maximum size, at least 1.
+     */
+    public void setTokenCacheMaximumSize(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("the maximum size of the token cache must be at least 1");
+        }
+        this.tokenCacheMaximumSize = maximumSize;
+    }
+
+    /**
+     * the number of retries of a throttled or failed request against the sas-api.
+     * @return the maximum number of retries.
+     */
+    public int getSasMaxRetries() {
+        return sasMaxRetries;
+    }
+
+    /**
+     * sets the number of retries of a request against the sas-api which has been throttled (429)
+     * or has failed with a server error (5xx, except 501 and 505). defaults to 3, 0 disables the retries.
+     * @param maxRetries the maximum number of retries.
+     */
+    public void setSasMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("the number of retries must not be negative");
+        }
+        this.sasMaxRetries = maxRetries;
+    }
+
+    /**
+     * the base delay of the exponential backoff between retries.
+     * @return the base delay.
+     */
+    public Duration getSasRetryBaseDelay() {
+        return sasRetryBaseDelay;
+    }
+
+    /**
+     * sets the base delay of the exponential backoff between retries, the delay of the n-th retry is chosen randomly
+     * up to base delay * 2^n. a Retry-After header of the sas-api is used instead, if present.
+     * defaults to 500 milliseconds.
+     * @param baseDelay the base delay.
+     */
+    public void setSasRetryBaseDelay(Duration baseDelay) {
+        this.sasRetryBaseDelay = baseDelay;
+    }
+
+    /**
+     * the maximum delay of the exponential backoff between retries.
+     * @return the maximum delay.
+     */
+    public Duration getSasRetryMaxDelay() {
+        return sasRetryMaxDelay;
+    }
+
+    /**
+     * sets the maximum delay between retries, a longer Retry-After delay of the sas-api is shortened to it.
+     * defaults to 30 seconds.
+     * @param maxDelay the maximum delay.
+     */
+    public void setSasRetryMaxDelay(Duration maxDelay) {
+        this.sasRetryMaxDelay = maxDelay;
+    }
+
+    /**
+     * the maximum rate of requests against the sas-api, can be null.
+     * @return the requests per second or null if the rate is not limited.
+     */
+    public Double getSasRequestsPerSecond() {
+        return sasRequestsPerSecond;
+    }
+
+    /**
+     * limits the rate of requests against the sas-api, requests exceeding the rate wait until they are allowed.
+     * up to one second worth of requests can be sent in a burst. not limited by default.
+     * @param requestsPerSecond the requests per second, null removes the limit.
+     */
+    public void setSasRequestsPerSecond(Double requestsPerSecond) {
+        if (requestsPerSecond != null && requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("the requests per second must be greater than 0");
+        }
+        this.sasRequestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * the executor for concurrent work of the client, can be null.
+     * @return the custom executor or null if a default executor is used.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * sets the executor for concurrent work of the client, e.g. fetching the sas tokens of several collections,
+     * renewing cached sas tokens or reading the pages of a search stream in the background.
+     * the tasks block on network requests.
+     * a bounded executor limits the concurrency, a task waiting for further tasks runs those which did not get
+     * a thread itself. every open search stream occupies a thread per reader while its buffer is full,
+     * so a bounded executor must have more threads than the readers of the streams open at once.
+     * defaults to a cached thread pool of daemon threads, which is unbounded.
+     * @param executor the executor, null to use the default executor.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * whether the assets of several items are signed in parallel.
+     * @return true if parallel signing is enabled.
+     */
+    public boolean isParallelSigning() {
+        return parallelSigning;
+    }
+
+    /**
+     * enables signing the assets of an {@link io.github11904212.java.stac.client.search.ItemCollection}
+     * in parallel, once the tokens are cached. the items keep their order. disabled by default.
+     * @param parallelSigning true to sign in parallel.
+     */
+    public void setParallelSigning(boolean parallelSigning) {
+        this.parallelSigning = parallelSigning;
+    }
+
+    /**
+     * the executor for parallel signing, can be null.
+     * @return the custom executor or null if the common fork-join pool is used.
+     */
+    public Executor getSigningExecutor() {
+        return signingExecutor;
+    }
+
+    /**
+     * sets the executor for parallel signing. the tasks are cpu bound and do not block.
+     * defaults to the common {@link java.util.concurrent.ForkJoinPool}.
+     * @param signingExecutor the executor, null to use the common pool.
+     */
+    public void setSigningExecutor(Executor signingExecutor) {
+        this.signingExecutor = signingExecutor;
+    }
+
+    /**
+     * whether assets are signed on their first access.
+     * @return true if lazy signing is enabled.
+     */
+    public boolean isLazySigning() {
+        return lazySigning;
+    }
+
+    /**
+     * enables lazy signing. the signed items then contain assets which fetch their token and build their signed
+     * href on the first call of getHref() or getExpiry(), so unused assets cost no work.
+     * errors of the signing are then thrown as {@link java.io.UncheckedIOException} by these methods.
+     * disabled by default.
+     * @param lazySigning true to sign lazily.
+     */
+    public void setLazySigning(boolean lazySigning) {
+        this.lazySigning = lazySigning;
+    }
+
+    /**
+     * the time before the token expiry from which signed assets renew their href, can be null.
+     * @return the margin or null if the hrefs of signed assets are fixed.
+     */
+    public Duration getAssetRenewalMargin() {
+        return assetRenewalMargin;
+    }
+
+    /**
+     * enables self-renewing signed assets for consumers which hold items longer than a token is valid.
+     * once the token of an asset expires within the margin, getHref() signs the asset again with a token
+     * which is valid for at least the margin, fetched from the token cache or the sas-api.
+     * the margin must be well below the validity of the tokens, which is usually about an hour,
+     * and is therefore limited to {@link #MAX_ASSET_RENEWAL_MARGIN}. disabled by default.
+     * @param assetRenewalMargin the margin, null to disable the renewal.
+     */
+    public void setAssetRenewalMargin(Duration assetRenewalMargin) {
+        if (assetRenewalMargin != null && (assetRenewalMargin.isNegative() || assetRenewalMargin.isZero())) {
+            throw new IllegalArgumentException("the asset renewal margin must be positive");
+        }
+        if (assetRenewalMargin != null && assetRenewalMargin.compareTo(MAX_ASSET_RENEWAL_MARGIN) > 0) {
+            throw new IllegalArgumentException(String.format(
+                    "the asset renewal margin must not exceed %s, half of the usual token validity",
+                    MAX_ASSET_RENEWAL_MARGIN
+            ));
+        }
+        this.assetRenewalMargin = assetRenewalMargin;
+    }
+
+    /**
+     * whether signed assets share the cached token instead of storing the signed href.
+     * @return true if compact signed assets are used.
+     */
+    public boolean isCompactSignedAssets() {
+        return compactSignedAssets;
+    }
+
+    /**
+     * enables compact signed assets, which store the unsigned href and a reference to the shared sas token.
+     * this reduces the memory of many signed assets held at once, but getHref() builds the signed href on every call.
+     * has no effect if lazy signing or the asset renewal is enabled. disabled by default.
+     * @param compactSignedAssets true to use compact signed assets.
+     */
+    public void setCompactSignedAssets(boolean compactSignedAssets) {
+        this.compactSignedAssets = compactSignedAssets;
+    }
+
+    /**
+     * the number of pages a streaming search reads ahead.
+     * @return the number of pages.
+     */
+    public int getSearchPrefetchPages() {
+        return searchPrefetchPages;
+    }
+
+    /**
+     * sets the number of signed pages a streaming search buffers, while the caller consumes the current page.
+     * bounds the memory of a search independent of its size. defaults to 2.
+     * @param searchPrefetchPages the number of pages, at least 1.
+     */
+    public void setSearchPrefetchPages(int searchPrefetchPages) {
+        if (searchPrefetchPages < 1) {
+            throw new IllegalArgumentException("at least one page must be prefetched");
+        }
+        this.searchPrefetchPages = searchPrefetchPages;
+    }
+
+    /**
+     * the time a search result is cached, can be null.
+     * @return the time to live or null if search results are not cached.
+     */
+    public Duration getSearchCacheTimeToLive() {
+        return searchCacheTimeToLive;
+    }
+
+    /**
+     * enables caching the results of {@link PlanetaryComputerClient#search} for repeated searches.
+     * the results are cached unsigned and signed again on every hit with the current sas tokens,
+     * so the hrefs of a cached result never expire earlier than those of a new search.
+     * equal searches which are sent concurrently are sent to the stac-api only once.
+     * disabled by default.
+     * @param timeToLive the time a result is cached, null to disable the cache.
+     */
+    public void setSearchCacheTimeToLive(Duration timeToLive) {
+        if (timeToLive != null && (timeToLive.isNegative() || timeToLive.isZero())) {
+            throw new IllegalArgumentException("the time to live of the search cache must be positive");
+        }
+        this.searchCacheTimeToLive = timeToLive;
+    }
+
+    /**
+     * the maximum size of the cached search results in bytes.
+     * @return the maximum size.
+     */
+    public long getSearchCacheMaximumBytes() {
+        return searchCacheMaximumBytes;
+    }
+
+    /**
+     * sets the maximum size of the cached search results, measured by the size of their json.
+     * if the cache is full the least recently used results are evicted. defaults to 64 MiB.
+     * @param maximumBytes the maximum size in bytes, at least 1.
+     */
+    public void setSearchCacheMaximumBytes(long maximumBytes) {
+        if (maximumBytes < 1) {
+            throw new IllegalArgumentException("the maximum size of the search cache must be at least 1 byte");
+        }
+        this.searchCacheMaximumBytes = maximumBytes;
+    }
+
+    /**
+     * the number of searches fetching items by their ids at once.
+     * @return the parallelism.
+     */
+    public int getItemFetchParallelism() {
+        return itemFetchParallelism;
+    }
+
+    /**
+     * sets the number of searches which {@link PlanetaryComputerClient#getItems} sends at once,
+     * every search fetches up to 250 items. defaults to 4.
+     * @param itemFetchParallelism the number of concurrent searches, at least 1.
+     */
+    public void setItemFetchParallelism(int itemFetchParallelism) {
+        if (itemFetchParallelism < 1) {
+            throw new IllegalArgumentException("the parallelism must be at least 1");
+        }
+        this.itemFetchParallelism = itemFetchParallelism;
+    }
+
+    /**
+     * the time the catalog and collection metadata is cached, can be null.
+     * @return the time to live or null if the metadata is not cached.
+     */
+    public Duration getMetadataCacheTimeToLive() {
+        return metadataCacheTimeToLive;
+    }
+
+    /**
+     * enables caching the results of {@link PlanetaryComputerClient#getCatalog()} and
+     * {@link PlanetaryComputerClient#getCollection(String)}, including collections which do not exist.
+     * the cached objects are shared by all callers and must not be modified. disabled by default.
+     * @param timeToLive the time the metadata is cached, null to disable the cache.
+     */
+    public void setMetadataCacheTimeToLive(Duration timeToLive) {
+        if (timeToLive != null && (timeToLive.isNegative() || timeToLive.isZero())) {
+            throw new IllegalArgumentException("the time to live of the metadata cache must be positive");
+        }
+        this.metadataCacheTimeToLive = timeToLive;
+    }
+
+    /**
+     * the fraction of the time to live after which used metadata is reloaded in the background, can be null.
+     * @return the fraction or null if refresh-ahead is disabled.
+     */
+    public Double getMetadataCacheRefreshAhead() {
+        return metadataCacheRefreshAhead;
+    }
+
+    /**
+     * enables reloading cached metadata in the background, once it is used after the given fraction of its
+     * time to live. the cached metadata is returned meanwhile, so frequently used metadata never expires
+     * in front of a caller. disabled by default.
+     * @param lifetimeFraction the fraction of the time to live, must be between 0 and 1 (exclusive),
+     *                         null disables the refresh.
+     */
+    public void setMetadataCacheRefreshAhead(Double lifetimeFraction) {
+        if (lifetimeFraction != null && (lifetimeFraction <= 0 || lifetimeFraction >= 1)) {
+            throw new IllegalArgumentException("the lifetime fraction must be between 0 and 1");
+        }
+        this.metadataCacheRefreshAhead = lifetimeFraction;
+    }
+
+    /**
+     * the maximum number of cached catalogs and collections.
+     * @return the maximum size.
+     */
+    public int getMetadataCacheMaximumSize() {
+        return metadataCacheMaximumSize;
+    }
+
+    /**
+     * sets the maximum number of cached catalogs and collections,
+     * if the cache is full the least recently used entry is evicted. defaults to 1000.
+     * @param maximumSize the maximum size, at least 1.
+     */
+    public void setMetadataCacheMaximumSize(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("the maximum size of the metadata cache must be at least 1");
+        }
+        this.metadataCacheMaximumSize = maximumSize;
+    }
+
+    /**
+     * the executor of the calls of an {@link io.github11904212.pcc.AsyncPlanetaryComputerClient}, can be null.
+     * @return the custom executor or null if a default executor is used.
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * sets the executor of the calls of an {@link io.github11904212.pcc.AsyncPlanetaryComputerClient},
+     * every call blocks one of its threads until the call is completed. defaults to a virtual thread per call
+     * on java 21 and later, to a cached thread pool of daemon threads on earlier versions.
+     * @param asyncExecutor the executor, null to use the default executor.
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * the listener receiving the timings and counts of the client, can be null.
+     * @return the listener or null if no metrics are recorded.
+     */
+    public MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * sets a listener receiving the timings and counts of the client, e.g. the token cache hits and misses,
+     * the latency of token fetches and search pages and the number of signed assets.
+     * without a listener the client does not measure anything. not set by default.
+     * @param metricsListener the listener, null to record no metrics.
+     */
+    public void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
     /**
      * a default config of the
      * <a href="https://planetarycomputer.microsoft.com/docs/overview/about">planetary computer</a>.
@@ -0,0 +1,72 @@
+package io.github11904212.pcc.dto;
+
+/**
+ * splits a search into partitions which are searched concurrently. the datetime interval of the search is split
+ * into equal time slices and optionally its bbox into a grid of cells, every combination is one partition.
+ * items on the boundary of two partitions are only returned once. to find them, the ids of the items whose datetime
+ * or bbox touches a boundary are kept until the search ends, all other items are handed out without being tracked.
+ */
+public class SearchPartitioning {
+
+    private final int timeSlices;
+    private final int bboxColumns;
+    private final int bboxRows;
+    private final int parallelism;
+
+    private SearchPartitioning(int timeSlices, int bboxColumns, int bboxRows, int parallelism) {
+        if (timeSlices < 1 || bboxColumns < 1 || bboxRows < 1) {
+            throw new IllegalArgumentException("the number of partitions must be at least 1");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("the parallelism must be at least 1");
+        }
+        this.timeSlices = timeSlices;
+        this.bboxColumns = bboxColumns;
+        this.bboxRows = bboxRows;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * splits the datetime interval of the search into equal slices, searched by up to 4 partitions at once.
+     * @param timeSlices the number of slices.
+     * @return the partitioning.
+     */
+    public static SearchPartitioning byTime(int timeSlices) {
+        return new SearchPartitioning(timeSlices, 1, 1, 4);
+    }
+
+    /**
+     * additionally splits the bbox of the search into a grid of equal cells.
+     * @param columns the number of cells from west to east.
+     * @param rows the number of cells from south to north.
+     * @return a new partitioning.
+     */
+    public SearchPartitioning withBboxGrid(int columns, int rows) {
+        return new SearchPartitioning(timeSlices, columns, rows, parallelism);
+    }
+
+    /**
+     * limits the number of partitions which are searched at once.
+     * @param parallelism the maximum number of concurrent partitions.
+     * @return a new partitioning.
+     */
+    public SearchPartitioning withParallelism(int parallelism) {
+        return new SearchPartitioning(timeSlices, bboxColumns, bboxRows, parallelism);
+    }
+
+    public int getTimeSlices() {
+        return timeSlices;
+    }
+
+    public int getBboxColumns() {
+        return bboxColumns;
+    }
+
+    public int getBboxRows() {
+        return bboxRows;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+}
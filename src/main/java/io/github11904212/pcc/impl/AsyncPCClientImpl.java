@@ -0,0 +1,139 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.AsyncPlanetaryComputerClient;
+import io.github11904212.pcc.PlanetaryComputerClient;
+import io.github11904212.pcc.SignedAsset;
+import io.github11904212.pcc.dto.AssetSelection;
+import io.github11904212.pcc.dto.ItemBatch;
+import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.java.stac.client.core.Asset;
+import io.github11904212.java.stac.client.core.Catalog;
+import io.github11904212.java.stac.client.core.Collection;
+import io.github11904212.java.stac.client.core.Item;
+import io.github11904212.java.stac.client.search.ItemCollection;
+import io.github11904212.java.stac.client.search.dto.QueryParameter;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+public class AsyncPCClientImpl implements AsyncPlanetaryComputerClient {
+
+    private final PlanetaryComputerClient client;
+    private final Executor executor;
+
+    public AsyncPCClientImpl(PCClientConfig config) {
+        this(
+                new PCClientImpl(config),
+                config.getAsyncExecutor() != null ? config.getAsyncExecutor() : defaultExecutor()
+        );
+    }
+
+    public AsyncPCClientImpl() {
+        this(PCClientConfig.defaultConfig());
+    }
+
+    /**
+     * creat an asynchronous client.
+     * @param client the blocking client performing the calls.
+     * @param executor the executor running the calls, every call blocks one thread of the executor.
+     */
+    public AsyncPCClientImpl(PlanetaryComputerClient client, Executor executor) {
+        this.client = client;
+        this.executor = executor;
+    }
+
+    @Override
+    public PlanetaryComputerClient getBlockingClient() {
+        return client;
+    }
+
+    @Override
+    public CompletableFuture<Catalog> getCatalog() {
+        return submit(client::getCatalog);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Collection>> getCollection(String id) {
+        return submit(() -> client.getCollection(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Item>> getItem(String collectionId, String itemId) {
+        return submit(() -> client.getItem(collectionId, itemId));
+    }
+
+    @Override
+    public CompletableFuture<ItemBatch> getItems(String collectionId, java.util.Collection<String> itemIds) {
+        return submit(() -> client.getItems(collectionId, itemIds));
+    }
+
+    @Override
+    public CompletableFuture<ItemBatch> getItems(
+            String collectionId,
+            java.util.Collection<String> itemIds,
+            AssetSelection selection
+    ) {
+        return submit(() -> client.getItems(collectionId, itemIds, selection));
+    }
+
+    @Override
+    public CompletableFuture<ItemCollection> search(QueryParameter queryParameter) {
+        return submit(() -> client.search(queryParameter));
+    }
+
+    @Override
+    public CompletableFuture<ItemCollection> search(QueryParameter queryParameter, AssetSelection selection) {
+        return submit(() -> client.search(queryParameter, selection));
+    }
+
+    @Override
+    public CompletableFuture<Item> sign(Item item) {
+        return submit(() -> client.sign(item));
+    }
+
+    @Override
+    public CompletableFuture<Item> sign(Item item, AssetSelection selection) {
+        return submit(() -> client.sign(item, selection));
+    }
+
+    @Override
+    public CompletableFuture<ItemCollection> sign(ItemCollection itemCollection) {
+        return submit(() -> client.sign(itemCollection));
+    }
+
+    @Override
+    public CompletableFuture<ItemCollection> sign(ItemCollection itemCollection, AssetSelection selection) {
+        return submit(() -> client.sign(itemCollection, selection));
+    }
+
+    @Override
+    public CompletableFuture<SignedAsset> sign(Asset asset) {
+        return submit(() -> client.sign(asset));
+    }
+
+    private <T> CompletableFuture<T> submit(CancellableTask.BlockingCall<T> call) {
+        var task = new CancellableTask<>(call);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.completeExceptionally(e);
+        }
+        return task;
+    }
+
+    /**
+     * a virtual thread per call on java 21 and later, since the calls only wait for requests.
+     * a cached pool of daemon threads on earlier versions.
+     */
+    static Executor defaultExecutor() {
+        try {
+            var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (Executor) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(new DaemonThreadFactory("pcc-async"));
+        }
+    }
+}
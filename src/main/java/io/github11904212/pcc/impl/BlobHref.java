@@ -0,0 +1,127 @@
+package io.github11904212.pcc.impl;
+
+import java.net.MalformedURLException;
+
+/**
+ * the parts of an azure blob storage href, which are needed for signing.
+ * the href is parsed in a single pass over its characters, without creating a {@link java.net.URL}.
+ */
+final class BlobHref {
+
+    private final String baseHref;
+    private final String account;
+    private final String container;
+
+    private BlobHref(String baseHref, String account, String container) {
+        this.baseHref = baseHref;
+        this.account = account;
+        this.container = container;
+    }
+
+    /**
+     * parses an href.
+     * @param href the href of an asset.
+     * @return the parsed href or null if the href does not refer to the azure blob storage.
+     * @throws MalformedURLException if the href has no protocol,
+     * or it refers to the blob storage but does not contain a storage account or container.
+     */
+    static BlobHref parse(String href) throws MalformedURLException {
+        int length = href.length();
+
+        int schemeEnd = href.indexOf("://");
+        if (schemeEnd <= 0 || !isScheme(href, schemeEnd)) {
+            throw new MalformedURLException(String.format("no protocol: %s", href));
+        }
+
+        // authority: [userinfo@]host[:port]
+        int hostStart = schemeEnd + 3;
+        int authorityEnd = length;
+        int hostEnd = -1;
+        for (int i = hostStart; i < length; i++) {
+            char c = href.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                authorityEnd = i;
+                break;
+            }
+            if (c == '@') {
+                hostStart = i + 1;
+                hostEnd = -1;
+            } else if (c == ':' && hostEnd < 0) {
+                hostEnd = i;
+            }
+        }
+        if (hostEnd < 0) {
+            hostEnd = authorityEnd;
+        }
+
+        var domain = ResourceSigner.BLOB_STORAGE_DOMAIN;
+        int accountEnd = hostEnd - domain.length();
+        if (accountEnd < hostStart || !href.startsWith(domain, accountEnd)) {
+            return null;
+        }
+        if (accountEnd == hostStart) {
+            throw new MalformedURLException(String.format("the given asset url did not contain a storage account. %s", href));
+        }
+
+        // path: /container/blob
+        int pathEnd = length;
+        for (int i = authorityEnd; i < length; i++) {
+            char c = href.charAt(i);
+            if (c == '?' || c == '#') {
+                pathEnd = i;
+                break;
+            }
+        }
+
+        int containerStart = authorityEnd + 1;
+        int containerEnd = containerStart < pathEnd ? href.indexOf('/', containerStart) : -1;
+        if (containerEnd < 0 || containerEnd >= pathEnd || containerEnd == containerStart
+                || !hasBlobName(href, containerEnd + 1, pathEnd)) {
+            throw new MalformedURLException(String.format("the given asset url did not contain a container. %s", href));
+        }
+
+        return new BlobHref(
+                pathEnd == length ? href : href.substring(0, pathEnd),
+                href.substring(hostStart, accountEnd),
+                href.substring(containerStart, containerEnd)
+        );
+    }
+
+    private static boolean isScheme(String href, int schemeEnd) {
+        if (!Character.isLetter(href.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < schemeEnd; i++) {
+            char c = href.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '+' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasBlobName(String href, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (href.charAt(i) != '/') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * the href without query and fragment.
+     * @return the unsigned href.
+     */
+    public String getBaseHref() {
+        return baseHref;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public String getContainer() {
+        return container;
+    }
+}
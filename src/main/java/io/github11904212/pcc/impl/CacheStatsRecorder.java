@@ -0,0 +1,56 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.CacheStats;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * counts the hits, misses, evictions and loads of a cache. the counters do not lock,
+ * so that they can be updated on the hot path of concurrent lookups.
+ */
+class CacheStatsRecorder {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+
+    public void recordHit() {
+        hitCount.increment();
+    }
+
+    public void recordMiss() {
+        missCount.increment();
+    }
+
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    /**
+     * records the loading of a new entry.
+     * @param loadTime the time spent loading in nanoseconds.
+     */
+    public void recordLoad(long loadTime) {
+        loadCount.increment();
+        loadTimeNanos.add(loadTime);
+    }
+
+    /**
+     * creat a snapshot of the counters.
+     * @param size the current number of entries of the cache.
+     * @return the snapshot.
+     */
+    public CacheStats snapshot(long size) {
+        return new CacheStats(
+                hitCount.sum(),
+                missCount.sum(),
+                evictionCount.sum(),
+                loadCount.sum(),
+                Duration.ofNanos(loadTimeNanos.sum()),
+                size
+        );
+    }
+}
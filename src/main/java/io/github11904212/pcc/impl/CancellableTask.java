@@ -0,0 +1,65 @@
+package io.github11904212.pcc.impl;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * a future of a blocking call, which interrupts the running call if it is cancelled.
+ * a blocking {@link java.net.http.HttpClient} request aborts on the interruption,
+ * unlike a {@link CompletableFuture} of a supplier, which keeps its thread busy after the cancellation.
+ * the call is run at most once, by the first thread calling {@link #run()}.
+ * @param <T> the type of the result.
+ */
+class CancellableTask<T> extends CompletableFuture<T> implements Runnable {
+
+    @FunctionalInterface
+    interface BlockingCall<T> {
+        T call() throws Exception;
+    }
+
+    private final BlockingCall<T> call;
+    private final Object runnerLock = new Object();
+    private Thread runner; // guarded by runnerLock
+    private boolean started = false; // guarded by runnerLock
+
+    CancellableTask(BlockingCall<T> call) {
+        this.call = call;
+    }
+
+    @Override
+    public void run() {
+        synchronized (runnerLock) {
+            if (started || isDone()) {
+                return;
+            }
+            started = true;
+            runner = Thread.currentThread();
+        }
+
+        try {
+            complete(call.call());
+        } catch (Throwable e) {
+            completeExceptionally(e);
+        } finally {
+            synchronized (runnerLock) {
+                runner = null;
+                if (isCancelled()) {
+                    // the interruption of the cancellation must not leak into the next task of the thread
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        var cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled && mayInterruptIfRunning) {
+            synchronized (runnerLock) {
+                if (runner != null) {
+                    runner.interrupt();
+                }
+            }
+        }
+        return cancelled;
+    }
+}
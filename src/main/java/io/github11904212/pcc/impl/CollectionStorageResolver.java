@@ -0,0 +1,48 @@
+package io.github11904212.pcc.impl;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * resolves the storage container of a collection from the msft:storage_account and msft:container fields
+ * of its metadata. the resolved containers are cached, since the storage of a collection does not change.
+ */
+class CollectionStorageResolver {
+
+    static final String STORAGE_ACCOUNT_FIELD = "msft:storage_account";
+    static final String CONTAINER_FIELD = "msft:container";
+
+    private final StacJsonClient stacJsonClient;
+    private final Map<String, Optional<StorageContainer>> storageCache = new ConcurrentHashMap<>();
+
+    public CollectionStorageResolver(StacJsonClient stacJsonClient) {
+        this.stacJsonClient = stacJsonClient;
+    }
+
+    /**
+     * resolves the storage container of a collection.
+     * @param collectionId the id of the collection.
+     * @return the container or empty if the collection metadata does not name a container.
+     * @throws IOException if the collection does not exist or could not be read.
+     */
+    public Optional<StorageContainer> resolve(String collectionId) throws IOException {
+        var storage = storageCache.get(collectionId);
+        if (storage != null) {
+            return storage;
+        }
+
+        var collection = stacJsonClient.getCollection(collectionId)
+                .orElseThrow(() -> new IOException(String.format("the collection %s does not exist", collectionId)));
+
+        var account = collection.path(STORAGE_ACCOUNT_FIELD).textValue();
+        var container = collection.path(CONTAINER_FIELD).textValue();
+
+        storage = account != null && container != null
+                ? Optional.of(new StorageContainer(account, container))
+                : Optional.empty();
+        storageCache.put(collectionId, storage);
+        return storage;
+    }
+}
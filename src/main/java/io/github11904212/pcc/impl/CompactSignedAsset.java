@@ -0,0 +1,82 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.SignedAsset;
+import io.github11904212.pcc.dto.SasToken;
+import io.github11904212.java.stac.client.core.Asset;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * a signed asset which stores the unsigned href and a reference to the shared {@link SasToken},
+ * instead of a concatenated href. the signed href is built on each call of {@link #getHref()}.
+ * all assets of a storage container share the token of the cache, so a large number of signed assets
+ * does not hold a copy of the token each.
+ */
+class CompactSignedAsset implements SignedAsset {
+
+    private final String baseHref;
+    private final SasToken token;
+    private final ZonedDateTime expiry;
+    private final String title;
+    private final String description;
+    private final String type;
+    private final List<String> roles;
+
+    /**
+     * creat a compact asset.
+     * @param asset the unsigned asset.
+     * @param baseHref the href without query.
+     * @param token the token of the asset or null if the href is not signed.
+     * @param expiry the expiry of the href.
+     */
+    public CompactSignedAsset(Asset asset, String baseHref, SasToken token, ZonedDateTime expiry) {
+        this.baseHref = baseHref;
+        this.token = token;
+        this.expiry = expiry;
+        this.title = asset.getTitle().orElse(null);
+        this.description = asset.getDescription().orElse(null);
+        this.type = asset.getType().orElse(null);
+        this.roles = asset.getRoles();
+    }
+
+    @Override
+    public String getHref() {
+        if (token == null) {
+            return baseHref;
+        }
+        return baseHref + "?" + token.getToken();
+    }
+
+    @Override
+    public Optional<String> getTitle() {
+        return Optional.ofNullable(title);
+    }
+
+    @Override
+    public Optional<String> getDescription() {
+        return Optional.ofNullable(description);
+    }
+
+    @Override
+    public Optional<String> getType() {
+        return Optional.ofNullable(type);
+    }
+
+    @Override
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    @Override
+    public ZonedDateTime getExpiry() {
+        return expiry;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Asset{href: %s}", this.getHref());
+    }
+
+}
@@ -0,0 +1,107 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.java.stac.client.core.Item;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * fetches many items of a collection by their ids. instead of one request per item, the ids are split into chunks
+ * and every chunk is fetched by a search filtering the ids, a bounded number of chunks at once.
+ */
+class ItemBatchFetcher {
+
+    /**
+     * the number of ids filtered by one search.
+     */
+    static final int IDS_PER_SEARCH = 250;
+
+    private final StacJsonClient stacJsonClient;
+    private final Executor executor;
+    private final int parallelism;
+
+    public ItemBatchFetcher(StacJsonClient stacJsonClient, Executor executor, int parallelism) {
+        this.stacJsonClient = stacJsonClient;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * fetches the items with the given ids.
+     * @param collectionId the collection of the items.
+     * @param itemIds the distinct ids of the items.
+     * @return the found items by their id, ids without an item are missing.
+     * @throws IOException if a search failed.
+     */
+    public Map<String, Item> fetch(String collectionId, Set<String> itemIds) throws IOException {
+        Map<String, Item> items = new ConcurrentHashMap<>();
+        if (itemIds.isEmpty()) {
+            return items;
+        }
+
+        Queue<List<String>> chunks = new ConcurrentLinkedQueue<>(partition(itemIds));
+
+        // every reader searches the next chunk until all chunks are done
+        ParallelTasks.run(Math.min(parallelism, chunks.size()), executor, () -> {
+            List<String> chunk;
+            while ((chunk = chunks.poll()) != null) {
+                fetchChunk(collectionId, chunk, itemIds, items);
+            }
+        });
+
+        return items;
+    }
+
+    private void fetchChunk(
+            String collectionId,
+            List<String> chunk,
+            Set<String> itemIds,
+            Map<String, Item> items
+    ) throws IOException {
+        var pager = new SearchPager(stacJsonClient, searchBody(collectionId, chunk));
+        while (pager.hasNext()) {
+            for (var item : pager.nextPage()) {
+                // the api should only return the requested items, but the ids are not trusted blindly
+                if (itemIds.contains(item.getId())
+                        && item.getCollection().map(collectionId::equals).orElse(true)) {
+                    items.putIfAbsent(item.getId(), item);
+                }
+            }
+        }
+    }
+
+    private static ObjectNode searchBody(String collectionId, List<String> chunk) {
+        var body = JsonNodeFactory.instance.objectNode();
+        body.putArray("collections").add(collectionId);
+        var ids = body.putArray("ids");
+        chunk.forEach(ids::add);
+        body.put("limit", chunk.size());
+        return body;
+    }
+
+    private static List<List<String>> partition(Collection<String> itemIds) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(Math.min(IDS_PER_SEARCH, itemIds.size()));
+        for (var itemId : itemIds) {
+            chunk.add(itemId);
+            if (chunk.size() == IDS_PER_SEARCH) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(IDS_PER_SEARCH);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,133 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.SignedAsset;
+import io.github11904212.java.stac.client.core.Asset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * a signed asset which resolves its token and signed href on the first call of {@link #getHref()}
+ * or {@link #getExpiry()}. the result is cached, concurrent first calls sign the asset only once.
+ */
+class LazySignedAsset implements SignedAsset {
+
+    private final Asset asset;
+    private final ResourceSigner resourceSigner;
+    private volatile SignedLink signedLink;
+
+    public LazySignedAsset(Asset asset, ResourceSigner resourceSigner) {
+        this(asset, resourceSigner, null);
+    }
+
+    LazySignedAsset(Asset asset, ResourceSigner resourceSigner, SignedLink signedLink) {
+        this.asset = asset;
+        this.resourceSigner = resourceSigner;
+        this.signedLink = signedLink;
+    }
+
+    /**
+     * the signed href.
+     * @return the href with the sas token.
+     * @throws UncheckedIOException if the href is malformed or the token could not be fetched.
+     */
+    @Override
+    public String getHref() {
+        return getSignedLink().getHref();
+    }
+
+    @Override
+    public Optional<String> getTitle() {
+        return asset.getTitle();
+    }
+
+    @Override
+    public Optional<String> getDescription() {
+        return asset.getDescription();
+    }
+
+    @Override
+    public Optional<String> getType() {
+        return asset.getType();
+    }
+
+    @Override
+    public List<String> getRoles() {
+        return asset.getRoles();
+    }
+
+    /**
+     * the expiry of the used sas token.
+     * @return the expiry datetime.
+     * @throws UncheckedIOException if the href is malformed or the token could not be fetched.
+     */
+    @Override
+    public ZonedDateTime getExpiry() {
+        return getSignedLink().getMsftExpiry();
+    }
+
+    /**
+     * whether the asset has already been signed.
+     * @return true if the signed href is resolved.
+     */
+    boolean isResolved() {
+        return signedLink != null;
+    }
+
+    private SignedLink getSignedLink() {
+        var link = signedLink;
+        if (link == null || needsRenewal(link)) {
+            synchronized (this) {
+                link = signedLink;
+                if (link == null || needsRenewal(link)) {
+                    link = signHref(link);
+                    signedLink = link;
+                }
+            }
+        }
+        return link;
+    }
+
+    /**
+     * signs the href of the asset, called by one thread at a time.
+     * @param previousLink the link signed before or null on the first access.
+     * @return the new link.
+     */
+    SignedLink signHref(SignedLink previousLink) {
+        try {
+            return resourceSigner.signHref(asset.getHref());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * whether the signed link has to be signed again before it is handed out.
+     * @param link the current link.
+     * @return true to sign again.
+     */
+    boolean needsRenewal(SignedLink link) {
+        return false;
+    }
+
+    Asset getAsset() {
+        return asset;
+    }
+
+    ResourceSigner getResourceSigner() {
+        return resourceSigner;
+    }
+
+    /**
+     * does not sign the asset, an asset which is not resolved yet shows its unsigned href.
+     */
+    @Override
+    public String toString() {
+        var link = signedLink;
+        return String.format("Asset{href: %s}", link != null ? link.getHref() : asset.getHref());
+    }
+
+}
@@ -0,0 +1,154 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.CacheStats;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * a time and size bounded cache of the catalog and collection metadata of the stac-api.
+ * if refresh-ahead is enabled, an entry which is used after the given fraction of its lifetime
+ * is reloaded in the background while the cached value is still returned.
+ * if the cache is full the least recently used entry is evicted. concurrent loads of the same entry are coalesced.
+ * the cached values are shared by all callers and must not be modified.
+ */
+class MetadataCache {
+
+    private final long timeToLiveMillis;
+    private final long refreshAfterMillis;
+    private final Clock clock;
+    private final Executor refreshExecutor;
+
+    // access ordered, guarded by itself
+    private final LinkedHashMap<String, CachedValue> entries;
+    private final SingleFlightLoader<Optional<?>> valueLoader = new SingleFlightLoader<>("the metadata");
+
+    private final CacheStatsRecorder stats = new CacheStatsRecorder();
+
+    /**
+     * creat a cache.
+     * @param timeToLive the time an entry is cached.
+     * @param refreshAhead the fraction of the time to live after which a used entry is reloaded in the background,
+     *                     null to disable refresh-ahead.
+     * @param maximumSize the maximum number of entries.
+     * @param clock the clock of the expiry.
+     * @param refreshExecutor the executor reloading entries in the background.
+     */
+    public MetadataCache(
+            Duration timeToLive,
+            Double refreshAhead,
+            int maximumSize,
+            Clock clock,
+            Executor refreshExecutor
+    ) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("the maximum size of the metadata cache must be at least 1");
+        }
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.refreshAfterMillis = refreshAhead != null ? (long) (timeToLiveMillis * refreshAhead) : -1;
+        this.clock = clock;
+        this.refreshExecutor = refreshExecutor;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+                if (size() > maximumSize) {
+                    stats.recordEviction();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * gets an entry, from the cache or from the given load.
+     * @param key the key of the entry, which determines the type of the value.
+     * @param load loads the value if it is not cached.
+     * @param <V> the type of the value.
+     * @return the value, empty if the load found no value.
+     * @throws IOException if the load failed.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> Optional<V> get(String key, MetadataLoad<V> load) throws IOException {
+        CachedValue entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        var now = clock.millis();
+        if (entry != null && entry.expiry > now) {
+            stats.recordHit();
+            if (refreshAfterMillis >= 0 && now >= entry.refreshAt && entry.refreshing.compareAndSet(false, true)) {
+                var refreshedEntry = entry;
+                try {
+                    refreshExecutor.execute(() -> refresh(key, load, refreshedEntry));
+                } catch (RejectedExecutionException e) {
+                    entry.refreshing.set(false);
+                }
+            }
+            return (Optional<V>) entry.value;
+        }
+
+        stats.recordMiss();
+        return (Optional<V>) load(key, load);
+    }
+
+    public CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return stats.snapshot(size);
+    }
+
+    private void refresh(String key, MetadataLoad<?> load, CachedValue entry) {
+        try {
+            load(key, load);
+        } catch (IOException | RuntimeException e) {
+            // the cached value stays in use and is refreshed again on its next use
+            entry.refreshing.set(false);
+        }
+    }
+
+    private Optional<?> load(String key, MetadataLoad<?> load) throws IOException {
+
+        // only one load per key is performed, all other callers wait for its result
+        return valueLoader.load(key, () -> {
+            var loadStart = System.nanoTime();
+            Optional<?> value = load.load();
+            stats.recordLoad(System.nanoTime() - loadStart);
+
+            var now = clock.millis();
+            var entry = new CachedValue(value, now + timeToLiveMillis, now + refreshAfterMillis);
+            synchronized (entries) {
+                entries.put(key, entry);
+            }
+            return value;
+        });
+    }
+
+    @FunctionalInterface
+    interface MetadataLoad<V> {
+        Optional<V> load() throws IOException;
+    }
+
+    private static class CachedValue {
+        private final Optional<?> value;
+        private final long expiry;
+        private final long refreshAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private CachedValue(Optional<?> value, long expiry, long refreshAt) {
+            this.value = value;
+            this.expiry = expiry;
+            this.refreshAt = refreshAt;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package io.github11904212.pcc.impl;
 
+import io.github11904212.pcc.MetricsListener;
 import io.github11904212.pcc.PlanetaryComputerClient;
+import io.github11904212.pcc.dto.AssetSelection;
+import io.github11904212.pcc.dto.CacheStats;
+import io.github11904212.pcc.dto.ItemBatch;
 import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.pcc.dto.SearchPartitioning;
 import io.github11904212.pcc.SignedAsset;
 import io.github11904212.java.stac.client.StacClient;
 import io.github11904212.java.stac.client.core.Asset;
@@ -13,20 +18,99 @@ import io.github11904212.java.stac.client.search.ItemCollection;
 import io.github11904212.java.stac.client.search.dto.QueryParameter;
 
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class PCClientImpl implements PlanetaryComputerClient {
+public class PCClientImpl implements PlanetaryComputerClient, AutoCloseable {
+
+    private static final String CATALOG_KEY = "catalog";
+    private static final String COLLECTION_KEY_PREFIX = "collections/";
 
     private final StacClient stacClient;
+    private final TokenManager tokenManager;
     private final ResourceSigner resourceSigner;
+    private final CollectionStorageResolver collectionStorageResolver;
+    private final StacJsonClient stacJsonClient;
+    private final Executor executor;
+    // the default executor is created by the client and therefore shut down on close
+    private final ExecutorService ownedExecutor;
+    private final int searchPrefetchPages;
+    private final SearchCache searchCache;
+    private final ItemBatchFetcher itemBatchFetcher;
+    private final MetadataCache metadataCache;
+    private final MetricsListener metrics;
 
     public PCClientImpl(PCClientConfig config) {
 
         this.stacClient = new StacClientImpl(config.getStacEndpoint());
 
-        var tokenManager = new TokenManager(config.getSasEndpoint(), config.getSubscriptionKey());
+        if (config.getExecutor() != null) {
+            this.ownedExecutor = null;
+            this.executor = config.getExecutor();
+        } else {
+            this.ownedExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory("pcc-worker"));
+            this.executor = ownedExecutor;
+        }
+
+        // the token renewals block on the sas-api, so they run on the executor and not on the shared scheduler
+        this.tokenManager = new TokenManager(config, Clock.systemUTC(), executor);
+
+        this.stacJsonClient = new StacJsonClient(config);
+
+        this.collectionStorageResolver = new CollectionStorageResolver(stacJsonClient);
+
+        Executor signingExecutor = null;
+        if (config.isParallelSigning()) {
+            signingExecutor = config.getSigningExecutor() != null
+                    ? config.getSigningExecutor()
+                    : ForkJoinPool.commonPool();
+        }
+
+        this.resourceSigner = new ResourceSigner(
+                tokenManager,
+                signingExecutor,
+                config.isLazySigning(),
+                config.getAssetRenewalMargin(),
+                config.isCompactSignedAssets(),
+                config.getMetricsListener()
+        );
+
+        this.searchPrefetchPages = config.getSearchPrefetchPages();
+
+        this.metrics = config.getMetricsListener();
 
-        this.resourceSigner = new ResourceSigner(tokenManager);
+        this.searchCache = config.getSearchCacheTimeToLive() != null
+                ? new SearchCache(
+                        config.getSearchCacheTimeToLive(),
+                        config.getSearchCacheMaximumBytes(),
+                        Clock.systemUTC()
+                )
+                : null;
+
+        this.itemBatchFetcher = new ItemBatchFetcher(stacJsonClient, executor, config.getItemFetchParallelism());
+
+        this.metadataCache = config.getMetadataCacheTimeToLive() != null
+                ? new MetadataCache(
+                        config.getMetadataCacheTimeToLive(),
+                        config.getMetadataCacheRefreshAhead(),
+                        config.getMetadataCacheMaximumSize(),
+                        Clock.systemUTC(),
+                        executor
+                )
+                : null;
 
     }
 
@@ -36,12 +120,18 @@ public class PCClientImpl implements PlanetaryComputerClient {
 
     @Override
     public Catalog getCatalog() throws IOException {
-        return stacClient.getCatalog();
+        if (metadataCache == null) {
+            return stacClient.getCatalog();
+        }
+        return metadataCache.get(CATALOG_KEY, () -> Optional.of(stacClient.getCatalog())).orElseThrow();
     }
 
     @Override
     public Optional<Collection> getCollection(String id) throws IOException {
-        return stacClient.getCollection(id);
+        if (metadataCache == null) {
+            return stacClient.getCollection(id);
+        }
+        return metadataCache.get(COLLECTION_KEY_PREFIX + id, () -> stacClient.getCollection(id));
     }
 
     @Override
@@ -53,10 +143,128 @@ public class PCClientImpl implements PlanetaryComputerClient {
         return Optional.empty();
     }
 
+    @Override
+    public ItemBatch getItems(String collectionId, java.util.Collection<String> itemIds) throws IOException {
+        return getItems(collectionId, itemIds, AssetSelection.all());
+    }
+
+    @Override
+    public ItemBatch getItems(
+            String collectionId,
+            java.util.Collection<String> itemIds,
+            AssetSelection selection
+    ) throws IOException {
+        var distinctIds = new LinkedHashSet<>(itemIds);
+        var foundItems = itemBatchFetcher.fetch(collectionId, distinctIds);
+
+        List<Item> items = new ArrayList<>(foundItems.size());
+        List<String> missingIds = new ArrayList<>();
+        for (var itemId : distinctIds) {
+            var item = foundItems.get(itemId);
+            if (item != null) {
+                items.add(item);
+            } else {
+                missingIds.add(itemId);
+            }
+        }
+
+        resourceSigner.signInPlace(items, selection, executor);
+        return new ItemBatch(items, missingIds);
+    }
+
     @Override
     public ItemCollection search(QueryParameter queryParameter) throws IOException, InterruptedException {
-        var itemCollection = stacClient.search(queryParameter);
-        return sign(itemCollection);
+        return search(queryParameter, AssetSelection.all());
+    }
+
+    @Override
+    public ItemCollection search(QueryParameter queryParameter, AssetSelection selection)
+            throws IOException, InterruptedException {
+        var searchStart = metrics != null ? System.nanoTime() : 0;
+        var event = new SearchPageEvent();
+        event.begin();
+
+        ItemCollection itemCollection;
+        if (searchCache == null) {
+            itemCollection = stacClient.search(queryParameter);
+        } else {
+            var body = stacJsonClient.toJson(queryParameter);
+            var page = searchCache.get(SearchCache.key(body), () -> stacJsonClient.searchRaw(body));
+            itemCollection = stacJsonClient.readItemCollection(page);
+        }
+
+        var items = itemCollection.getItems();
+        var itemCount = items != null ? items.size() : 0;
+        event.record(itemCount);
+        if (metrics != null) {
+            metrics.onSearchPage(itemCount, System.nanoTime() - searchStart);
+        }
+        return sign(itemCollection, selection);
+    }
+
+    @Override
+    public Stream<Item> searchAll(QueryParameter queryParameter) {
+        return searchAll(queryParameter, AssetSelection.all());
+    }
+
+    @Override
+    public Stream<Item> searchAll(QueryParameter queryParameter, AssetSelection selection) {
+        var iterator = new PrefetchingSearchIterator(
+                new SearchPager(stacJsonClient, queryParameter),
+                page -> resourceSigner.signInPlace(page, selection, executor),
+                searchPrefetchPages,
+                executor
+        );
+        return stream(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    @Override
+    public Stream<Item> searchPartitioned(QueryParameter queryParameter, SearchPartitioning partitioning) {
+        return searchPartitioned(queryParameter, partitioning, AssetSelection.all());
+    }
+
+    @Override
+    public Stream<Item> searchPartitioned(
+            QueryParameter queryParameter,
+            SearchPartitioning partitioning,
+            AssetSelection selection
+    ) {
+        var searchBody = stacJsonClient.toJson(queryParameter);
+        var boundaries = SearchPartitioner.boundaries(searchBody, partitioning);
+        List<SearchPager> pagers = new ArrayList<>();
+        for (var body : SearchPartitioner.partition(searchBody, partitioning)) {
+            pagers.add(new SearchPager(stacJsonClient, body, boundaries));
+        }
+
+        var iterator = new PrefetchingSearchIterator(
+                pagers,
+                page -> resourceSigner.signInPlace(page, selection, executor),
+                Math.max(searchPrefetchPages, partitioning.getParallelism()),
+                partitioning.getParallelism(),
+                executor
+        );
+        return stream(iterator, Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    private static Stream<Item> stream(PrefetchingSearchIterator iterator, int characteristics) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, characteristics),
+                false
+        ).onClose(iterator::close);
+    }
+
+    @Override
+    public Flow.Publisher<Item> searchPublisher(QueryParameter queryParameter) {
+        return searchPublisher(queryParameter, AssetSelection.all());
+    }
+
+    @Override
+    public Flow.Publisher<Item> searchPublisher(QueryParameter queryParameter, AssetSelection selection) {
+        return new SearchPublisher(
+                () -> new SearchPager(stacJsonClient, queryParameter),
+                page -> resourceSigner.signInPlace(page, selection, executor),
+                executor
+        );
     }
 
     @Override
@@ -69,11 +277,19 @@ public class PCClientImpl implements PlanetaryComputerClient {
         return resourceSigner.signInPlace(item);
     }
 
+    @Override
+    public Item sign(Item item, AssetSelection selection) throws IOException {
+        return resourceSigner.signInPlace(item, selection);
+    }
+
     @Override
     public ItemCollection sign(ItemCollection itemCollection) throws IOException {
-        for (var item : itemCollection.getItems()){
-            resourceSigner.signInPlace(item);
-        }
+        return sign(itemCollection, AssetSelection.all());
+    }
+
+    @Override
+    public ItemCollection sign(ItemCollection itemCollection, AssetSelection selection) throws IOException {
+        resourceSigner.signInPlace(itemCollection.getItems(), selection, executor);
         return itemCollection;
     }
 
@@ -81,4 +297,46 @@ public class PCClientImpl implements PlanetaryComputerClient {
     public SignedAsset sign(Asset asset) throws IOException {
         return resourceSigner.sign(asset);
     }
+
+    @Override
+    public void warmTokenCache(List<String> collectionIds) throws IOException {
+        ParallelTasks.forEach(new LinkedHashSet<>(collectionIds), executor, collectionId -> {
+            var storage = collectionStorageResolver.resolve(collectionId);
+            if (storage.isPresent()) {
+                tokenManager.getToken(storage.get().getAccount(), storage.get().getContainer());
+            }
+        });
+    }
+
+    @Override
+    public CacheStats getTokenCacheStats() {
+        return tokenManager.getCacheStats();
+    }
+
+    @Override
+    public CacheStats getSearchCacheStats() {
+        return searchCache != null
+                ? searchCache.getStats()
+                : new CacheStats(0, 0, 0, 0, Duration.ZERO, 0);
+    }
+
+    @Override
+    public CacheStats getMetadataCacheStats() {
+        return metadataCache != null
+                ? metadataCache.getStats()
+                : new CacheStats(0, 0, 0, 0, Duration.ZERO, 0);
+    }
+
+    /**
+     * stops the background renewal of the sas tokens and shuts down the default executor of the client.
+     * a configured executor is left running. a client with the default executor must not be used afterwards,
+     * its concurrent work, e.g. searches and token prefetches, would be rejected.
+     */
+    @Override
+    public void close() {
+        tokenManager.close();
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
 }
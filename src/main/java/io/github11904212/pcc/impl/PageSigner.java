@@ -0,0 +1,14 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.java.stac.client.core.Item;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * signs a page of search results before it is handed out.
+ */
+@FunctionalInterface
+interface PageSigner {
+    void sign(List<Item> page) throws IOException;
+}
@@ -0,0 +1,126 @@
+package io.github11904212.pcc.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * runs blocking tasks concurrently and waits for all of them.
+ * the waiting thread runs the tasks which no thread of the executor has started yet itself,
+ * so that tasks which are nested in tasks of the same executor can not starve a bounded executor.
+ */
+final class ParallelTasks {
+
+    @FunctionalInterface
+    interface IOTask<T> {
+        void run(T input) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface IOWorker {
+        void run() throws IOException;
+    }
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * runs the task for each input on the executor and waits until all tasks are completed.
+     * @param inputs the inputs of the tasks.
+     * @param executor the executor running the tasks.
+     * @param task the task.
+     * @param <T> the type of the inputs.
+     * @throws IOException the exception of the first failed task, the exceptions of other failed tasks are suppressed.
+     */
+    static <T> void forEach(Collection<T> inputs, Executor executor, IOTask<? super T> task) throws IOException {
+        if (inputs.size() == 1) {
+            task.run(inputs.iterator().next());
+            return;
+        }
+
+        List<CancellableTask<Void>> futures = new ArrayList<>(inputs.size());
+        for (var input : inputs) {
+            futures.add(new CancellableTask<>(() -> {
+                task.run(input);
+                return null;
+            }));
+        }
+        runAll(futures, executor);
+    }
+
+    /**
+     * runs the given number of workers on the executor and waits until all workers are completed.
+     * the workers usually take their work from a shared queue until it is empty.
+     * @param workers the number of workers.
+     * @param executor the executor running the workers.
+     * @param worker the worker.
+     * @throws IOException the exception of the first failed worker, the exceptions of other failed workers
+     *                     are suppressed.
+     */
+    static void run(int workers, Executor executor, IOWorker worker) throws IOException {
+        if (workers == 1) {
+            worker.run();
+            return;
+        }
+
+        List<CancellableTask<Void>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(new CancellableTask<>(() -> {
+                worker.run();
+                return null;
+            }));
+        }
+        runAll(futures, executor);
+    }
+
+    private static void runAll(List<CancellableTask<Void>> futures, Executor executor) throws IOException {
+        for (var future : futures) {
+            executor.execute(future);
+        }
+
+        IOException failure = null;
+        for (var future : futures) {
+            try {
+                // does nothing if a thread of the executor has already started the task
+                future.run();
+                future.get();
+            } catch (InterruptedException e) {
+                // interrupts the running tasks, so that their requests are aborted as well
+                futures.forEach(pending -> pending.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for parallel tasks");
+            } catch (ExecutionException e) {
+                var cause = unwrap(e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static IOException unwrap(Throwable cause) {
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,120 @@
+package io.github11904212.pcc.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * the instants and lines at which a search has been split into partitions.
+ * an item can only be returned by several partitions if its datetime or bbox touches one of them,
+ * so only the keys of these items have to be kept to skip the duplicates.
+ */
+final class PartitionBoundaries {
+
+    private final List<Instant> splitInstants;
+    private final double[] splitLongitudes;
+    private final double[] splitLatitudes;
+
+    PartitionBoundaries(List<Instant> splitInstants, double[] splitLongitudes, double[] splitLatitudes) {
+        this.splitInstants = splitInstants;
+        this.splitLongitudes = splitLongitudes;
+        this.splitLatitudes = splitLatitudes;
+    }
+
+    /**
+     * the key by which duplicates of an item are found.
+     * @param collection the collection of the item, can be empty.
+     * @param id the id of the item.
+     * @return the key.
+     */
+    static String key(String collection, String id) {
+        return collection + "/" + id;
+    }
+
+    /**
+     * finds the items of a page which may also be returned by another partition.
+     * @param page the raw json of a page of search results.
+     * @return the keys of the items on a boundary.
+     */
+    Set<String> findItemsOnBoundary(JsonNode page) {
+        Set<String> keys = new HashSet<>();
+        for (var feature : page.path("features")) {
+            if (isOnBoundary(feature)) {
+                keys.add(key(feature.path("collection").asText(""), feature.path("id").asText()));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * whether the extent of an item touches a split, an item without a readable extent is on a boundary.
+     */
+    boolean isOnBoundary(JsonNode feature) {
+        return !splitInstants.isEmpty() && touchesSplitInstant(feature.path("properties"))
+                || (splitLongitudes.length > 0 || splitLatitudes.length > 0) && touchesSplitLine(feature.path("bbox"));
+    }
+
+    private boolean touchesSplitInstant(JsonNode properties) {
+        Instant start;
+        Instant end;
+        var datetime = properties.path("datetime").asText(null);
+        if (datetime != null) {
+            start = parseInstant(datetime);
+            end = start;
+        } else {
+            start = parseInstant(properties.path("start_datetime").asText(null));
+            end = parseInstant(properties.path("end_datetime").asText(null));
+        }
+        if (start == null || end == null) {
+            return true;
+        }
+        for (var splitInstant : splitInstants) {
+            if (!splitInstant.isBefore(start) && !splitInstant.isAfter(end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean touchesSplitLine(JsonNode bbox) {
+        // a 2d bbox has 4 coordinates, a 3d bbox 6
+        if (!bbox.isArray() || bbox.size() != 4 && bbox.size() != 6) {
+            return true;
+        }
+        var dimensions = bbox.size() / 2;
+        var west = bbox.get(0).asDouble();
+        var south = bbox.get(1).asDouble();
+        var east = bbox.get(dimensions).asDouble();
+        var north = bbox.get(dimensions + 1).asDouble();
+        if (east < west) {
+            // crosses the antimeridian
+            return true;
+        }
+        return touchesSplit(splitLongitudes, west, east) || touchesSplit(splitLatitudes, south, north);
+    }
+
+    private static boolean touchesSplit(double[] splits, double min, double max) {
+        for (var split : splits) {
+            if (min <= split && split <= max) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Instant parseInstant(String datetime) {
+        if (datetime == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(datetime).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
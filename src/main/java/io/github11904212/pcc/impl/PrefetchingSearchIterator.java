@@ -0,0 +1,250 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.java.stac.client.core.Item;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * iterates over the items of all pages of a search. the pages are read and signed in the background,
+ * while the caller consumes the previous page. at most the given number of pages is buffered,
+ * the background task waits until the caller has taken a page, so a search of any size runs in constant memory.
+ * the pages of several searches, e.g. the partitions of a search, are read concurrently and merged
+ * in the order they are read. an item on the boundary of several searches, which is returned by more than one of them,
+ * is only handed out once.
+ * the iterator should be closed once it is no longer used. the background tasks only hold the shared reading
+ * state and not the iterator, so the reading of an iterator which is dropped without closing it
+ * is stopped once the iterator is garbage collected.
+ */
+class PrefetchingSearchIterator implements Iterator<Item>, AutoCloseable {
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private static final Cleaner CLEANER = Cleaner.create(new DaemonThreadFactory("pcc-search-cleaner"));
+
+    private final PageReader reader;
+    private final Cleaner.Cleanable cleanable;
+
+    private Iterator<Item> currentPage = Collections.emptyIterator();
+    private boolean finished = false;
+
+    /**
+     * creat an iterator and start reading the first page.
+     * @param pager the pages of the search.
+     * @param pageSigner signs a page before it is handed out.
+     * @param prefetchPages the maximum number of buffered pages.
+     * @param executor runs the background task, which blocks on network requests.
+     */
+    public PrefetchingSearchIterator(SearchPager pager, PageSigner pageSigner, int prefetchPages, Executor executor) {
+        this(List.of(pager), pageSigner, prefetchPages, 1, executor);
+    }
+
+    /**
+     * creat an iterator over several searches and start reading their first pages.
+     * @param pagers the pages of the searches.
+     * @param pageSigner signs a page before it is handed out.
+     * @param prefetchPages the maximum number of buffered pages.
+     * @param parallelism the maximum number of searches which are read at once.
+     * @param executor runs the background tasks, which block on network requests.
+     */
+    public PrefetchingSearchIterator(
+            List<SearchPager> pagers,
+            PageSigner pageSigner,
+            int prefetchPages,
+            int parallelism,
+            Executor executor
+    ) {
+        var readers = Math.max(1, Math.min(parallelism, pagers.size()));
+        this.reader = new PageReader(pagers, pageSigner, prefetchPages, readers);
+        this.cleanable = CLEANER.register(this, reader::close);
+        for (int i = 0; i < readers; i++) {
+            executor.execute(reader::readPages);
+        }
+    }
+
+    /**
+     * whether there are more items, waits for the next page if necessary.
+     * @throws UncheckedIOException if a page could not be read or signed.
+     */
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext()) {
+            if (finished) {
+                return false;
+            }
+            var page = takePage();
+            if (page.failure != null) {
+                finished = true;
+                close();
+                throw new UncheckedIOException(page.failure);
+            }
+            if (page.items == null) {
+                finished = true;
+                return false;
+            }
+            currentPage = page.items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Item next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    /**
+     * stops reading further pages and releases the buffered pages.
+     */
+    @Override
+    public void close() {
+        finished = true;
+        cleanable.clean();
+    }
+
+    /**
+     * takes the next page, the end of the pages if the reading was stopped by a concurrent close.
+     */
+    private Page takePage() {
+        try {
+            while (true) {
+                var page = reader.pages.poll(OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (page != null) {
+                    return page;
+                }
+                if (reader.interrupted) {
+                    close();
+                    throw new UncheckedIOException(
+                            new InterruptedIOException("the reading of the search results was interrupted")
+                    );
+                }
+                if (reader.closed) {
+                    return new Page(null, null);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new UncheckedIOException(new InterruptedIOException("interrupted while waiting for the next page"));
+        }
+    }
+
+    /**
+     * the state shared by the background tasks, which must not reference the iterator.
+     */
+    private static class PageReader {
+
+        private final Queue<SearchPager> pagers;
+        private final PageSigner pageSigner;
+        private final BlockingQueue<Page> pages;
+        // only the keys of the items on a boundary between the searches
+        private final Set<String> readItems = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger runningReaders;
+        private final AtomicBoolean failed = new AtomicBoolean();
+        private volatile boolean closed = false;
+        // a reader was interrupted and may not have handed out its last page
+        private volatile boolean interrupted = false;
+
+        private PageReader(
+                List<SearchPager> pagers,
+                PageSigner pageSigner,
+                int prefetchPages,
+                int readers
+        ) {
+            this.pagers = new ConcurrentLinkedQueue<>(pagers);
+            this.pageSigner = pageSigner;
+            this.pages = new ArrayBlockingQueue<>(prefetchPages);
+            this.runningReaders = new AtomicInteger(readers);
+        }
+
+        private void close() {
+            closed = true;
+            pages.clear();
+        }
+
+        private void readPages() {
+            try {
+                SearchPager pager;
+                while (!closed && !failed.get() && (pager = pagers.poll()) != null) {
+                    while (!closed && !failed.get() && pager.hasNext()) {
+                        var items = unreadItems(pager, pager.nextPage());
+                        if (items.isEmpty()) {
+                            continue;
+                        }
+                        pageSigner.sign(items);
+                        putPage(new Page(items, null));
+                    }
+                }
+                if (runningReaders.decrementAndGet() == 0) {
+                    putPage(new Page(null, null));
+                }
+            } catch (IOException e) {
+                fail(e);
+            } catch (RuntimeException e) {
+                fail(new IOException("could not read the search results", e));
+            }
+        }
+
+        private List<Item> unreadItems(SearchPager pager, List<Item> items) {
+            List<Item> unreadItems = new ArrayList<>(items.size());
+            for (var item : items) {
+                if (!pager.isOnBoundary(item)
+                        || readItems.add(PartitionBoundaries.key(item.getCollection().orElse(""), item.getId()))) {
+                    unreadItems.add(item);
+                }
+            }
+            return unreadItems;
+        }
+
+        private void fail(IOException failure) {
+            // the other readers stop, only the first failure is handed out
+            if (failed.compareAndSet(false, true)) {
+                putPage(new Page(null, failure));
+            }
+        }
+
+        private void putPage(Page page) {
+            try {
+                while (!closed) {
+                    if (pages.offer(page, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // the page is lost, so the consumer must not wait for it
+                interrupted = true;
+                closed = true;
+            }
+        }
+    }
+
+    private static class Page {
+        private final List<Item> items;
+        private final IOException failure;
+
+        private Page(List<Item> items, IOException failure) {
+            this.items = items;
+            this.failure = failure;
+        }
+    }
+}
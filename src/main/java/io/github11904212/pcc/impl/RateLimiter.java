@@ -0,0 +1,61 @@
+package io.github11904212.pcc.impl;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * a token bucket which limits the rate of requests. callers exceeding the rate are queued
+ * and wait until a permit is available.
+ */
+class RateLimiter {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double permitsPerSecond;
+    private final double maxPermits;
+    private double storedPermits;
+    private long lastRefill;
+
+    /**
+     * creat a rate limiter.
+     * @param permitsPerSecond the sustained rate, also the number of permits which can be used in a burst.
+     */
+    public RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("the rate must be greater than 0");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxPermits = Math.max(1, permitsPerSecond);
+        this.storedPermits = maxPermits;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * blocks until a permit is available.
+     * @throws InterruptedIOException if the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedIOException {
+        var waitNanos = reserve();
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for a permit of the rate limit");
+            }
+        }
+    }
+
+    private synchronized long reserve() {
+        var now = System.nanoTime();
+        storedPermits = Math.min(maxPermits, storedPermits + (now - lastRefill) * permitsPerSecond / NANOS_PER_SECOND);
+        lastRefill = now;
+
+        // negative permits are reserved by queued callers
+        storedPermits -= 1;
+        if (storedPermits >= 0) {
+            return 0;
+        }
+        return (long) (-storedPermits * NANOS_PER_SECOND / permitsPerSecond);
+    }
+}
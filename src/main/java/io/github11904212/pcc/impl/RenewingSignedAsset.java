@@ -0,0 +1,76 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.java.stac.client.core.Asset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+
+/**
+ * a signed asset which signs its href again, once the token expires within the renewal margin.
+ * the new token is taken from the {@link TokenManager}, which only contacts the sas-api if its cached token
+ * is about to expire as well. if the renewal fails, the current href is handed out as long as it is valid.
+ * a renewal which fails or yields a token that still expires within the margin is not retried
+ * before the retry delay, so that the sas-api is not queried on every access.
+ */
+class RenewingSignedAsset extends LazySignedAsset {
+
+    /**
+     * the time after a failed or insufficient renewal, until the next renewal is tried.
+     */
+    static final long RENEWAL_RETRY_DELAY_MILLIS = 5_000;
+
+    private final long renewalMarginMillis;
+    private final Clock clock;
+    private volatile long nextRenewalMillis;
+
+    /**
+     * creat a renewing asset.
+     * @param asset the unsigned asset.
+     * @param resourceSigner the signer of the asset.
+     * @param signedLink the signed link of the asset, null to sign it on the first access.
+     * @param renewalMarginMillis the time before the expiry of the token from which the href is renewed.
+     * @param clock the clock the expiry of the token is checked with.
+     */
+    RenewingSignedAsset(
+            Asset asset,
+            ResourceSigner resourceSigner,
+            SignedLink signedLink,
+            long renewalMarginMillis,
+            Clock clock
+    ) {
+        super(asset, resourceSigner, signedLink);
+        this.renewalMarginMillis = renewalMarginMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    boolean needsRenewal(SignedLink link) {
+        var now = clock.millis();
+        return link.getMsftExpiryMillis() - renewalMarginMillis <= now
+                && (nextRenewalMillis <= now || link.getMsftExpiryMillis() <= now);
+    }
+
+    @Override
+    SignedLink signHref(SignedLink previousLink) {
+        try {
+            var link = getResourceSigner().signHref(getAsset().getHref(), renewalMarginMillis);
+            var now = clock.millis();
+            if (link.getMsftExpiryMillis() - renewalMarginMillis <= now) {
+                // the api issues tokens which are shorter than the margin
+                nextRenewalMillis = now + RENEWAL_RETRY_DELAY_MILLIS;
+            }
+            return link;
+        } catch (IOException | RuntimeException e) {
+            var now = clock.millis();
+            if (previousLink != null && previousLink.getMsftExpiryMillis() > now) {
+                nextRenewalMillis = now + RENEWAL_RETRY_DELAY_MILLIS;
+                return previousLink;
+            }
+            if (e instanceof IOException) {
+                throw new UncheckedIOException((IOException) e);
+            }
+            throw (RuntimeException) e;
+        }
+    }
+}
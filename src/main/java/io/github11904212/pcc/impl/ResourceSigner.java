@@ -1,92 +1,326 @@
 package io.github11904212.pcc.impl;
 
+import io.github11904212.pcc.MetricsListener;
 import io.github11904212.pcc.SignedAsset;
+import io.github11904212.pcc.dto.AssetSelection;
 import io.github11904212.java.stac.client.core.Asset;
 import io.github11904212.java.stac.client.core.Item;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 class ResourceSigner {
 
     public static final String BLOB_STORAGE_DOMAIN = ".blob.core.windows.net";
 
+    /**
+     * the minimum number of assets signed by one parallel task.
+     */
+    static final int MIN_ASSETS_PER_TASK = 64;
+
     private final TokenManager tokenManager;
+    private final Executor signingExecutor;
+    private final boolean lazy;
+    private final long renewalMarginMillis;
+    private final boolean compact;
+    private final MetricsListener metrics;
+    private final Clock clock;
 
 
     public ResourceSigner(TokenManager tokenManager) {
+        this(tokenManager, null, false);
+    }
+
+    public ResourceSigner(
+            TokenManager tokenManager,
+            Executor signingExecutor,
+            boolean lazy
+    ) {
+        this(tokenManager, signingExecutor, lazy, null, false);
+    }
+
+    public ResourceSigner(
+            TokenManager tokenManager,
+            Executor signingExecutor,
+            boolean lazy,
+            Duration renewalMargin,
+            boolean compact
+    ) {
+        this(tokenManager, signingExecutor, lazy, renewalMargin, compact, null);
+    }
+
+    /**
+     * creat a signer.
+     * @param tokenManager the token manager.
+     * @param signingExecutor signs the assets of several items in parallel, null to sign them sequentially.
+     * @param lazy true to put {@link LazySignedAsset}s into the items, which are signed on their first access.
+     * @param renewalMargin the time before the token expiry from which the assets renew their href,
+     *                      null for assets with a fixed href.
+     * @param compact true to put {@link CompactSignedAsset}s into the items, which share the cached token.
+     *                ignored for lazy or renewing assets.
+     * @param metrics receives the number of signed assets per call, null to record no metrics.
+     */
+    public ResourceSigner(
+            TokenManager tokenManager,
+            Executor signingExecutor,
+            boolean lazy,
+            Duration renewalMargin,
+            boolean compact,
+            MetricsListener metrics
+    ) {
+        this(tokenManager, signingExecutor, lazy, renewalMargin, compact, metrics, Clock.systemUTC());
+    }
+
+    /**
+     * creat a signer like {@link #ResourceSigner(TokenManager, Executor, boolean, Duration, boolean, MetricsListener)}.
+     * @param clock the clock the renewing assets check the expiry of their token with.
+     */
+    ResourceSigner(
+            TokenManager tokenManager,
+            Executor signingExecutor,
+            boolean lazy,
+            Duration renewalMargin,
+            boolean compact,
+            MetricsListener metrics,
+            Clock clock
+    ) {
         this.tokenManager = tokenManager;
+        this.signingExecutor = signingExecutor;
+        this.lazy = lazy;
+        this.renewalMarginMillis = renewalMargin != null ? renewalMargin.toMillis() : -1;
+        this.compact = compact;
+        this.metrics = metrics;
+        this.clock = clock;
     }
 
     public Item signInPlace(Item item) throws IOException {
+        return signInPlace(item, AssetSelection.all());
+    }
 
-        var assets = item.getAssets();
-        for (var entry : assets.entrySet()){
-            entry.setValue(sign(entry.getValue()));
+    /**
+     * signs the selected assets of an item.
+     * @param item the item to sign.
+     * @param selection the assets to sign, not selected assets are kept unsigned or removed.
+     * @return the same item but with signed assets.
+     * @throws IOException if an href is malformed or a token could not be fetched.
+     */
+    public Item signInPlace(Item item, AssetSelection selection) throws IOException {
+        var signingStart = metrics != null ? System.nanoTime() : 0;
+        var event = new SigningEvent();
+        event.begin();
+        var signedAssets = 0;
+
+        var iterator = item.getAssets().entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (!selection.test(entry.getKey(), entry.getValue())) {
+                if (selection.isPruning()) {
+                    iterator.remove();
+                }
+                continue;
+            }
+            entry.setValue(lazy ? creatLazyAsset(entry.getValue()) : sign(entry.getValue()));
+            signedAssets++;
         }
 
+        recordSigning(1, signedAssets, signingStart, event);
         return item;
     }
 
+    public <T extends Collection<? extends Item>> T signInPlace(T items, Executor executor) throws IOException {
+        return signInPlace(items, AssetSelection.all(), executor);
+    }
+
+    /**
+     * signs several items at once. the hrefs of all assets are parsed first, the missing tokens of all distinct
+     * storage containers are fetched concurrently and then all assets are signed from the token cache,
+     * in parallel chunks if a signing executor is set. a lazy signer leaves the assets to be signed
+     * on their first access.
+     * @param items the items to sign.
+     * @param selection the assets to sign, not selected assets are kept unsigned or removed.
+     * @param executor the executor fetching the missing tokens.
+     * @return the same items but with signed assets.
+     * @throws IOException if an href is malformed or a token could not be fetched.
+     */
+    public <T extends Collection<? extends Item>> T signInPlace(
+            T items,
+            AssetSelection selection,
+            Executor executor
+    ) throws IOException {
+        var signingStart = metrics != null ? System.nanoTime() : 0;
+        var event = new SigningEvent();
+        event.begin();
+
+        if (lazy) {
+            var signedAssets = 0;
+            for (var item : items) {
+                var iterator = item.getAssets().entrySet().iterator();
+                while (iterator.hasNext()) {
+                    var entry = iterator.next();
+                    if (selection.test(entry.getKey(), entry.getValue())) {
+                        entry.setValue(creatLazyAsset(entry.getValue()));
+                        signedAssets++;
+                    } else if (selection.isPruning()) {
+                        iterator.remove();
+                    }
+                }
+            }
+            recordSigning(items.size(), signedAssets, signingStart, event);
+            return items;
+        }
+
+        List<PendingAsset> pendingAssets = new ArrayList<>();
+        Set<StorageContainer> containers = new LinkedHashSet<>();
+
+        for (var item : items) {
+            var iterator = item.getAssets().entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                if (!selection.test(entry.getKey(), entry.getValue())) {
+                    if (selection.isPruning()) {
+                        iterator.remove();
+                    }
+                    continue;
+                }
+                var blobHref = BlobHref.parse(entry.getValue().getHref());
+                if (blobHref != null) {
+                    containers.add(new StorageContainer(blobHref.getAccount(), blobHref.getContainer()));
+                }
+                pendingAssets.add(new PendingAsset(entry, blobHref));
+            }
+        }
+
+        tokenManager.prefetch(containers, executor);
+
+        if (signingExecutor == null || pendingAssets.size() < 2 * MIN_ASSETS_PER_TASK) {
+            signAll(pendingAssets);
+        } else {
+            ParallelTasks.forEach(partition(pendingAssets), signingExecutor, this::signAll);
+        }
+
+        recordSigning(items.size(), pendingAssets.size(), signingStart, event);
+        return items;
+    }
+
+    /**
+     * every pending asset belongs to its own map entry, so the chunks can be signed in parallel
+     * without synchronizing on the asset maps.
+     */
+    private void signAll(List<PendingAsset> pendingAssets) throws IOException {
+        for (var pendingAsset : pendingAssets) {
+            var asset = pendingAsset.entry.getValue();
+            pendingAsset.entry.setValue(creatAsset(asset, pendingAsset.blobHref));
+        }
+    }
+
+    private void recordSigning(int itemCount, int assetCount, long signingStart, SigningEvent event) {
+        event.record(itemCount, assetCount);
+        if (metrics != null) {
+            metrics.onAssetsSigned(itemCount, assetCount, System.nanoTime() - signingStart);
+        }
+    }
+
+    private static List<List<PendingAsset>> partition(List<PendingAsset> pendingAssets) {
+        var taskCount = Math.min(
+                pendingAssets.size() / MIN_ASSETS_PER_TASK,
+                Runtime.getRuntime().availableProcessors() * 4
+        );
+        var chunkSize = (pendingAssets.size() + taskCount - 1) / taskCount;
+        List<List<PendingAsset>> chunks = new ArrayList<>(taskCount);
+        for (int start = 0; start < pendingAssets.size(); start += chunkSize) {
+            chunks.add(pendingAssets.subList(start, Math.min(start + chunkSize, pendingAssets.size())));
+        }
+        return chunks;
+    }
+
 
     public SignedAsset sign(Asset asset) throws IOException {
-        var signedLink = signHref(asset.getHref());
-        return new SignedAssetImpl(
+        return creatAsset(
                 asset,
-                signedLink
+                BlobHref.parse(asset.getHref())
         );
     }
 
+    SignedLink signHref(String href) throws IOException {
+        return signHref(href, BlobHref.parse(href));
+    }
+
+    /**
+     * signs an href with a token which is valid for at least the given time.
+     */
+    SignedLink signHref(String href, long minValidityMillis) throws IOException {
+        return signHref(href, BlobHref.parse(href), minValidityMillis);
+    }
 
-    private SignedLink signHref(String href) throws IOException {
+    private SignedAsset creatAsset(Asset asset, BlobHref blobHref) throws IOException {
+        if (compact && renewalMarginMillis < 0) {
+            return creatCompactAsset(asset, blobHref);
+        }
 
-        var url = new URL(href);
+        var signedLink = signHref(asset.getHref(), blobHref);
+        if (renewalMarginMillis >= 0) {
+            return new RenewingSignedAsset(asset, this, signedLink, renewalMarginMillis, clock);
+        }
+        return new SignedAssetImpl(asset, signedLink);
+    }
 
-        if (!isBlobStorageDomain(url)) {
-            return new SignedLink(
-                    url.toString(),
-                    ZonedDateTime.now().plusYears(1)
-            );
+    private SignedAsset creatCompactAsset(Asset asset, BlobHref blobHref) throws IOException {
+        if (blobHref == null) {
+            return new CompactSignedAsset(asset, asset.getHref(), null, ZonedDateTime.now().plusYears(1));
         }
 
-        String account = extractAccount(url);
-        String container = extractContainer(url);
+        var sasToken = tokenManager.getToken(blobHref.getAccount(), blobHref.getContainer());
+        return new CompactSignedAsset(asset, blobHref.getBaseHref(), sasToken, sasToken.getMsftExpiry());
+    }
 
-        var sasToken = tokenManager.getToken(account, container);
+    private SignedAsset creatLazyAsset(Asset asset) {
+        if (renewalMarginMillis >= 0) {
+            return new RenewingSignedAsset(asset, this, null, renewalMarginMillis, clock);
+        }
+        return new LazySignedAsset(asset, this);
+    }
 
-        var urlStr = url.toString();
 
-        if (url.getQuery() != null){
-            var query = "?" + url.getQuery();
-            urlStr = urlStr.replace(query, "");
+    private SignedLink signHref(String href, BlobHref blobHref) throws IOException {
+        return signHref(href, blobHref, 0);
+    }
+
+    private SignedLink signHref(String href, BlobHref blobHref, long minValidityMillis) throws IOException {
+
+        if (blobHref == null) {
+            return new SignedLink(
+                    href,
+                    ZonedDateTime.now().plusYears(1)
+            );
         }
 
+        var sasToken = minValidityMillis > 0
+                ? tokenManager.getToken(blobHref.getAccount(), blobHref.getContainer(), minValidityMillis)
+                : tokenManager.getToken(blobHref.getAccount(), blobHref.getContainer());
+
         return new SignedLink(
-                urlStr + "?" + sasToken.getToken(),
+                blobHref.getBaseHref() + "?" + sasToken.getToken(),
                 sasToken.getMsftExpiry()
         );
     }
 
-    private boolean isBlobStorageDomain(URL url){
-        return url.getHost().endsWith(BLOB_STORAGE_DOMAIN);
-    }
-
-    private String extractAccount(URL url) throws MalformedURLException {
-        var parts = url.getHost().split(BLOB_STORAGE_DOMAIN);
-        if (parts.length < 1) {
-            throw new MalformedURLException(String.format("the given asset url did not contain a storage account. %s", url));
-        }
-        return parts[0];
-    }
+    private static class PendingAsset {
+        private final Map.Entry<String, Asset> entry;
+        private final BlobHref blobHref;
 
-    private String extractContainer(URL url) throws MalformedURLException {
-        var parts = url.getPath().split("/");
-        if (parts.length < 3) {
-            throw new MalformedURLException(String.format("the given asset url did not contain a container. %s", url));
+        private PendingAsset(Map.Entry<String, Asset> entry, BlobHref blobHref) {
+            this.entry = entry;
+            this.blobHref = blobHref;
         }
-        return parts[1];
     }
 
 }
@@ -0,0 +1,164 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.pcc.dto.SasToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * performs the requests against the sas-api on a shared {@link HttpClient},
+ * which keeps the connections to the api alive between requests.
+ * throttled (429) and failed (5xx) requests are retried with a jittered exponential backoff,
+ * a Retry-After header of the api takes precedence over the backoff, both are bounded by the maximum retry delay.
+ * requests which the api does not support (501, 505) are not retried.
+ * the request timeout bounds every attempt as a whole, including the reading of the response body.
+ */
+class SasClient {
+
+    private final URL sasEndpoint;
+    private final String subscriptionKey;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final ObjectMapper mapper;
+    private final int maxRetries;
+    private final long retryBaseDelayMillis;
+    private final long retryMaxDelayMillis;
+    private final RateLimiter rateLimiter;
+
+    public SasClient(PCClientConfig config) {
+        this.sasEndpoint = config.getSasEndpoint();
+        this.subscriptionKey = config.getSubscriptionKey();
+        this.requestTimeout = config.getSasRequestTimeout();
+        this.httpClient = config.getHttpClient() != null
+                ? config.getHttpClient()
+                : HttpClient.newBuilder()
+                .connectTimeout(config.getSasConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.mapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.maxRetries = config.getSasMaxRetries();
+        this.retryBaseDelayMillis = config.getSasRetryBaseDelay().toMillis();
+        this.retryMaxDelayMillis = config.getSasRetryMaxDelay().toMillis();
+        this.rateLimiter = config.getSasRequestsPerSecond() != null
+                ? new RateLimiter(config.getSasRequestsPerSecond())
+                : null;
+    }
+
+    public SasToken fetchToken(String account, String container) throws IOException {
+
+        StringBuilder query = new StringBuilder(sasEndpoint.toString());
+        String tokenPath = String.format("token/%s/%s", account, container);
+        query.append(tokenPath);
+
+        if (this.subscriptionKey != null) {
+            query.append("?subscription-key=");
+            query.append(this.subscriptionKey);
+        }
+
+        var request = HttpRequest.newBuilder(URI.create(query.toString()))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        for (int attempt = 0; ; attempt++) {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+
+            var response = send(request, tokenPath);
+            var status = response.statusCode();
+            if (status == 200) {
+                return mapper.readValue(response.body(), SasToken.class);
+            }
+            if (!isRetryable(status) || attempt >= maxRetries) {
+                throw new IOException(String.format(
+                        "the sas-api responded with status %d for %s", status, tokenPath
+                ));
+            }
+            sleep(retryDelay(response, attempt), tokenPath);
+        }
+    }
+
+    /**
+     * the timeout of the request only bounds the wait for the response headers,
+     * so the whole exchange is awaited with the timeout, a stalled body can not block the caller forever.
+     */
+    private HttpResponse<byte[]> send(HttpRequest request, String tokenPath) throws IOException {
+        var response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        try {
+            return response.get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("interrupted while requesting %s", tokenPath));
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            throw new HttpTimeoutException(String.format("the request of %s timed out", tokenPath));
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(String.format("the request of %s failed", tokenPath), cause);
+        }
+    }
+
+    private boolean isRetryable(int status) {
+        return status == 429 || status >= 500 && status != 501 && status != 505;
+    }
+
+    private long retryDelay(HttpResponse<?> response, int attempt) {
+        var retryAfter = response.headers().firstValue("Retry-After");
+        if (retryAfter.isPresent()) {
+            var delay = parseRetryAfter(retryAfter.get());
+            if (delay >= 0) {
+                return Math.min(delay, retryMaxDelayMillis);
+            }
+        }
+        // full jitter, see https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/
+        var backoff = Math.min(retryMaxDelayMillis, retryBaseDelayMillis << Math.min(attempt, 30));
+        return ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+
+    private long parseRetryAfter(String retryAfter) {
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            // not in seconds, the value can also be a http-date
+        }
+        try {
+            var date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(), date).toMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private void sleep(long millis, String tokenPath) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("interrupted while retrying %s", tokenPath));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.CacheStats;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * a time and size bounded cache of unsigned search results, keyed by the normalized search body.
+ * a result is stored as the raw json of the page, so that every hit reads new items which are signed in place
+ * with the current tokens, and the size of the cache is bounded by the bytes it holds.
+ * if the cache is full the least recently used results are evicted. concurrent loads of the same search
+ * are coalesced into one request.
+ */
+class SearchCache {
+
+    /**
+     * the properties of a search which are sets, their order does not change the results.
+     */
+    private static final Set<String> SET_PROPERTIES = Set.of("collections", "ids");
+
+    private final long timeToLiveMillis;
+    private final long maximumBytes;
+    private final Clock clock;
+
+    // access ordered, guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private final SingleFlightLoader<byte[]> pageLoader = new SingleFlightLoader<>("the search results");
+
+    private final CacheStatsRecorder stats = new CacheStatsRecorder();
+
+    public SearchCache(Duration timeToLive, long maximumBytes, Clock clock) {
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("the time to live of the search cache must be positive");
+        }
+        if (maximumBytes < 1) {
+            throw new IllegalArgumentException("the maximum size of the search cache must be at least 1 byte");
+        }
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.maximumBytes = maximumBytes;
+        this.clock = clock;
+    }
+
+    /**
+     * the key of a search. the properties are sorted and the collections and ids are sorted and deduplicated,
+     * so that equal searches have the same key independent of the order their parameters were set in.
+     * @param body the json body of the search.
+     * @return the key.
+     */
+    static String key(JsonNode body) {
+        return normalize(body).toString();
+    }
+
+    /**
+     * gets the result of a search, from the cache or from the given load.
+     * @param key the key of the search, see {@link #key(JsonNode)}.
+     * @param load loads the result if it is not cached.
+     * @return the raw json of the result, must not be modified.
+     * @throws IOException if the load failed.
+     */
+    public byte[] get(String key, PageLoad load) throws IOException {
+
+        var cachedPage = lookup(key, true);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        // only one load per key is performed, all other callers wait for its result
+        return pageLoader.load(key, () -> {
+            // the result could have been stored by a load which finished in the meantime
+            var page = lookup(key, false);
+            if (page == null) {
+                var loadStart = System.nanoTime();
+                page = load.load();
+                stats.recordLoad(System.nanoTime() - loadStart);
+                put(key, page);
+            }
+            return page;
+        });
+    }
+
+    public CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return stats.snapshot(size);
+    }
+
+    private byte[] lookup(String key, boolean recordStats) {
+        synchronized (entries) {
+            var entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiry > clock.millis()) {
+                    if (recordStats) {
+                        stats.recordHit();
+                    }
+                    return entry.page;
+                }
+                remove(key);
+            }
+        }
+        if (recordStats) {
+            stats.recordMiss();
+        }
+        return null;
+    }
+
+    private void put(String key, byte[] page) {
+        var entry = new Entry(page, clock.millis() + timeToLiveMillis, weigh(key, page));
+        if (entry.weight > maximumBytes) {
+            // a result larger than the whole cache would only evict all others
+            return;
+        }
+
+        synchronized (entries) {
+            var previous = entries.put(key, entry);
+            if (previous != null) {
+                bytes -= previous.weight;
+            }
+            bytes += entry.weight;
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maximumBytes && eldest.hasNext()) {
+                var evicted = eldest.next();
+                eldest.remove();
+                bytes -= evicted.weight;
+                stats.recordEviction();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        var entry = entries.remove(key);
+        if (entry != null) {
+            bytes -= entry.weight;
+            stats.recordEviction();
+        }
+    }
+
+    /**
+     * the approximate memory of an entry, the page bytes and the chars of the key.
+     */
+    private static long weigh(String key, byte[] page) {
+        return page.length + 2L * key.length();
+    }
+
+    private static JsonNode normalize(JsonNode node) {
+        if (node.isObject()) {
+            var sorted = new TreeMap<String, JsonNode>();
+            node.fields().forEachRemaining(field -> {
+                var value = field.getValue();
+                if (SET_PROPERTIES.contains(field.getKey()) && value.isArray()) {
+                    sorted.put(field.getKey(), normalizeSet(value));
+                } else {
+                    sorted.put(field.getKey(), normalize(value));
+                }
+            });
+            ObjectNode normalized = JsonNodeFactory.instance.objectNode();
+            normalized.setAll(sorted);
+            return normalized;
+        }
+        if (node.isArray()) {
+            ArrayNode normalized = JsonNodeFactory.instance.arrayNode();
+            for (var element : node) {
+                normalized.add(normalize(element));
+            }
+            return normalized;
+        }
+        return node;
+    }
+
+    private static JsonNode normalizeSet(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        for (var element : array) {
+            if (!element.isTextual()) {
+                return normalize(array);
+            }
+            values.add(element.asText());
+        }
+        ArrayNode normalized = JsonNodeFactory.instance.arrayNode();
+        new TreeSet<>(values).forEach(normalized::add);
+        return normalized;
+    }
+
+    @FunctionalInterface
+    interface PageLoad {
+        byte[] load() throws IOException;
+    }
+
+    private static class Entry {
+        private final byte[] page;
+        private final long expiry;
+        private final long weight;
+
+        private Entry(byte[] page, long expiry, long weight) {
+            this.page = page;
+            this.expiry = expiry;
+            this.weight = weight;
+        }
+    }
+}
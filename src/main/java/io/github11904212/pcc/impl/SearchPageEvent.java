@@ -0,0 +1,30 @@
+package io.github11904212.pcc.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * a flight recorder event of reading a page of search results, without signing its items.
+ */
+@Name("io.github11904212.pcc.SearchPage")
+@Label("Search Page")
+@Category({"Planetary Computer Client", "Search"})
+@Description("Reads a page of search results from the STAC API or the search cache")
+@StackTrace(false)
+final class SearchPageEvent extends Event {
+
+    @Label("Items")
+    int itemCount;
+
+    void record(int itemCount) {
+        end();
+        if (shouldCommit()) {
+            this.itemCount = itemCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.java.stac.client.core.Item;
+import io.github11904212.java.stac.client.search.dto.QueryParameter;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * pages through the results of a search by following the next links of the stac-api.
+ * not thread-safe, the pages are read one after another.
+ */
+class SearchPager {
+
+    private final StacJsonClient stacJsonClient;
+    private final PartitionBoundaries boundaries;
+    private JsonNode body;
+    private JsonNode nextLink;
+    private boolean started = false;
+    private Set<String> itemsOnBoundary = Set.of();
+
+    public SearchPager(StacJsonClient stacJsonClient, QueryParameter queryParameter) {
+        this(stacJsonClient, stacJsonClient.toJson(queryParameter));
+    }
+
+    public SearchPager(StacJsonClient stacJsonClient, JsonNode body) {
+        this(stacJsonClient, body, null);
+    }
+
+    /**
+     * creat a pager for a partition of a search.
+     * @param stacJsonClient the client.
+     * @param body the body of the partition.
+     * @param boundaries the boundaries between the partitions of the search, null if it is not partitioned.
+     */
+    public SearchPager(StacJsonClient stacJsonClient, JsonNode body, PartitionBoundaries boundaries) {
+        this.stacJsonClient = stacJsonClient;
+        this.body = body;
+        this.boundaries = boundaries;
+    }
+
+    /**
+     * whether there is another page.
+     * @return false if the last page has been read.
+     */
+    public boolean hasNext() {
+        return !started || nextLink != null;
+    }
+
+    /**
+     * reads the next page.
+     * @return the items of the page, can be empty.
+     * @throws IOException if the page could not be read.
+     * @throws IllegalStateException if there is no next page.
+     */
+    public List<Item> nextPage() throws IOException {
+        if (!hasNext()) {
+            throw new IllegalStateException("the last page has already been read");
+        }
+
+        var metrics = stacJsonClient.getMetricsListener();
+        var readStart = metrics != null ? System.nanoTime() : 0;
+        var event = new SearchPageEvent();
+        event.begin();
+
+        JsonNode page;
+        if (!started) {
+            page = stacJsonClient.search(body);
+            started = true;
+        } else {
+            var link = nextLink;
+            body = stacJsonClient.nextBody(link, body);
+            page = stacJsonClient.followLink(link, body);
+        }
+
+        nextLink = findNextLink(page);
+        itemsOnBoundary = boundaries != null ? boundaries.findItemsOnBoundary(page) : Set.of();
+        var itemCollection = stacJsonClient.readItemCollection(page);
+        var items = itemCollection.getItems();
+        event.record(items != null ? items.size() : 0);
+        if (metrics != null) {
+            metrics.onSearchPage(items != null ? items.size() : 0, System.nanoTime() - readStart);
+        }
+        if (items == null || items.isEmpty()) {
+            // an empty page ends the search, even if the api returned a next link
+            nextLink = null;
+            return List.of();
+        }
+        return items;
+    }
+
+    /**
+     * whether an item of the last page may also be returned by another partition of the search.
+     * @param item an item of the last page.
+     * @return false if the search is not partitioned.
+     */
+    public boolean isOnBoundary(Item item) {
+        return !itemsOnBoundary.isEmpty()
+                && itemsOnBoundary.contains(PartitionBoundaries.key(item.getCollection().orElse(""), item.getId()));
+    }
+
+    private static JsonNode findNextLink(JsonNode page) {
+        for (var link : page.path("links")) {
+            if ("next".equals(link.path("rel").asText()) && link.hasNonNull("href")) {
+                return link;
+            }
+        }
+        return null;
+    }
+}
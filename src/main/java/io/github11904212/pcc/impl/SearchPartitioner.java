@@ -0,0 +1,173 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.SearchPartitioning;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * splits the json body of a search into the bodies of its partitions.
+ * the partitions share their boundaries, since the datetime interval and the bbox of a stac search are inclusive.
+ */
+final class SearchPartitioner {
+
+    static final String DATETIME_FIELD = "datetime";
+    static final String BBOX_FIELD = "bbox";
+
+    private SearchPartitioner() {
+    }
+
+    /**
+     * splits a search.
+     * @param body the body of the search.
+     * @param partitioning the partitioning.
+     * @return the bodies of the partitions.
+     * @throws IllegalArgumentException if the search has no closed datetime interval or no bbox to split.
+     */
+    static List<ObjectNode> partition(ObjectNode body, SearchPartitioning partitioning) {
+        List<ObjectNode> timePartitions = new ArrayList<>();
+        if (partitioning.getTimeSlices() == 1) {
+            timePartitions.add(body);
+        } else {
+            for (var interval : splitDatetime(body.path(DATETIME_FIELD).asText(null), partitioning.getTimeSlices())) {
+                timePartitions.add(body.deepCopy().put(DATETIME_FIELD, interval));
+            }
+        }
+
+        if (partitioning.getBboxColumns() == 1 && partitioning.getBboxRows() == 1) {
+            return timePartitions;
+        }
+
+        var cells = splitBbox(body, partitioning.getBboxColumns(), partitioning.getBboxRows());
+        List<ObjectNode> partitions = new ArrayList<>(timePartitions.size() * cells.size());
+        for (var timePartition : timePartitions) {
+            for (var cell : cells) {
+                var partition = timePartition.deepCopy();
+                var bbox = partition.putArray(BBOX_FIELD);
+                for (var coordinate : cell) {
+                    bbox.add(coordinate);
+                }
+                partitions.add(partition);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * the boundaries between the partitions of a search, at which an item may be returned by several partitions.
+     * @param body the body of the search.
+     * @param partitioning the partitioning.
+     * @return the boundaries.
+     * @throws IllegalArgumentException if the search has no closed datetime interval or no bbox to split.
+     */
+    static PartitionBoundaries boundaries(ObjectNode body, SearchPartitioning partitioning) {
+        List<Instant> splitInstants = List.of();
+        if (partitioning.getTimeSlices() > 1) {
+            var bounds = splitInterval(body.path(DATETIME_FIELD).asText(null), partitioning.getTimeSlices());
+            splitInstants = bounds.subList(1, bounds.size() - 1);
+        }
+
+        var splitLongitudes = new double[0];
+        var splitLatitudes = new double[0];
+        if (partitioning.getBboxColumns() > 1 || partitioning.getBboxRows() > 1) {
+            var bbox = readBbox(body);
+            var longitudes = splitRange(bbox[0], bbox[2], partitioning.getBboxColumns());
+            var latitudes = splitRange(bbox[1], bbox[3], partitioning.getBboxRows());
+            splitLongitudes = Arrays.copyOfRange(longitudes, 1, longitudes.length - 1);
+            splitLatitudes = Arrays.copyOfRange(latitudes, 1, latitudes.length - 1);
+        }
+        return new PartitionBoundaries(splitInstants, splitLongitudes, splitLatitudes);
+    }
+
+    private static List<String> splitDatetime(String datetime, int slices) {
+        var bounds = splitInterval(datetime, slices);
+        List<String> intervals = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            intervals.add(DateTimeFormatter.ISO_INSTANT.format(bounds.get(i)) + "/" +
+                    DateTimeFormatter.ISO_INSTANT.format(bounds.get(i + 1)));
+        }
+        return intervals;
+    }
+
+    /**
+     * the bounds of the slices, from the start to the end of the interval.
+     */
+    private static List<Instant> splitInterval(String datetime, int slices) {
+        if (datetime == null || !datetime.contains("/")) {
+            throw new IllegalArgumentException("only a search with a datetime interval can be partitioned by time");
+        }
+
+        var bounds = datetime.split("/", 2);
+        Instant start;
+        Instant end;
+        try {
+            start = OffsetDateTime.parse(bounds[0]).toInstant();
+            end = OffsetDateTime.parse(bounds[1]).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(
+                    String.format("the datetime interval %s is open or malformed and can not be partitioned", datetime), e
+            );
+        }
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException(String.format("the datetime interval %s is empty", datetime));
+        }
+
+        var length = Duration.between(start, end);
+        List<Instant> sliceBounds = new ArrayList<>(slices + 1);
+        sliceBounds.add(start);
+        for (int i = 1; i < slices; i++) {
+            sliceBounds.add(start.plus(length.multipliedBy(i).dividedBy(slices)));
+        }
+        sliceBounds.add(end);
+        return sliceBounds;
+    }
+
+    private static List<double[]> splitBbox(ObjectNode body, int columns, int rows) {
+        var bbox = readBbox(body);
+        var longitudes = splitRange(bbox[0], bbox[2], columns);
+        var latitudes = splitRange(bbox[1], bbox[3], rows);
+
+        List<double[]> cells = new ArrayList<>(columns * rows);
+        for (int column = 0; column < columns; column++) {
+            for (int row = 0; row < rows; row++) {
+                cells.add(new double[]{longitudes[column], latitudes[row], longitudes[column + 1], latitudes[row + 1]});
+            }
+        }
+        return cells;
+    }
+
+    private static double[] readBbox(ObjectNode body) {
+        var bbox = body.path(BBOX_FIELD);
+        if (!bbox.isArray() || bbox.size() != 4) {
+            throw new IllegalArgumentException("only a search with a 2d bbox can be partitioned by bbox");
+        }
+
+        var west = bbox.get(0).asDouble();
+        var south = bbox.get(1).asDouble();
+        var east = bbox.get(2).asDouble();
+        var north = bbox.get(3).asDouble();
+        if (east < west) {
+            throw new IllegalArgumentException("a bbox crossing the antimeridian can not be partitioned");
+        }
+        return new double[]{west, south, east, north};
+    }
+
+    /**
+     * the bounds of equal parts of a range, from its min to its max.
+     */
+    private static double[] splitRange(double min, double max, int parts) {
+        var bounds = new double[parts + 1];
+        for (int i = 0; i < parts; i++) {
+            bounds[i] = min + (max - min) * i / parts;
+        }
+        bounds[parts] = max;
+        return bounds;
+    }
+}
@@ -0,0 +1,201 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.java.stac.client.core.Item;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * publishes the items of all pages of a search. every subscriber runs its own search.
+ * a page is only read and signed if the subscriber has requested more items than are left of the current page,
+ * so the search runs as fast as the subscriber consumes. no thread is blocked while waiting for demand,
+ * the pages are read on the executor. a cancellation interrupts a running page request.
+ */
+class SearchPublisher implements Flow.Publisher<Item> {
+
+    private final Supplier<SearchPager> pagerFactory;
+    private final PageSigner pageSigner;
+    private final Executor executor;
+
+    /**
+     * creat a publisher.
+     * @param pagerFactory creates the pager of a new search for every subscriber.
+     * @param pageSigner signs a page before its items are published.
+     * @param executor reads the pages and emits the items.
+     */
+    public SearchPublisher(Supplier<SearchPager> pagerFactory, PageSigner pageSigner, Executor executor) {
+        this.pagerFactory = pagerFactory;
+        this.pageSigner = pageSigner;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Item> subscriber) {
+        Objects.requireNonNull(subscriber, "the subscriber must not be null");
+        SearchPager pager;
+        try {
+            pager = pagerFactory.get();
+        } catch (RuntimeException e) {
+            // the failure is signaled to the subscriber, subscribe must not throw
+            subscriber.onSubscribe(new FailedSubscription());
+            subscriber.onError(e);
+            return;
+        }
+        subscriber.onSubscribe(new SearchSubscription(subscriber, pager));
+    }
+
+    /**
+     * the subscription of a search which could not be started, its failure has already been signaled.
+     */
+    private static class FailedSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            // nothing to publish
+        }
+
+        @Override
+        public void cancel() {
+            // nothing to cancel
+        }
+    }
+
+    private class SearchSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super Item> subscriber;
+        private final SearchPager pager;
+
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private final Object fetchLock = new Object();
+        private volatile boolean cancelled = false;
+        private volatile IllegalArgumentException invalidRequest = null;
+        private Thread fetchingThread;
+
+        // only accessed by the draining thread
+        private Iterator<Item> currentPage = Collections.emptyIterator();
+        private boolean done = false;
+
+        private SearchSubscription(Flow.Subscriber<? super Item> subscriber, SearchPager pager) {
+            this.subscriber = subscriber;
+            this.pager = pager;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException(
+                        String.format("the number of requested items must be positive, but was %d", n)
+                );
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            synchronized (fetchLock) {
+                if (fetchingThread != null) {
+                    fetchingThread.interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                try {
+                    drain();
+                } catch (Throwable e) {
+                    // the subscriber failed to handle a signal, so it must not receive any further signals,
+                    // the pending drains are still counted down so that the counter does not stay raised
+                    done = true;
+                    cancel();
+                }
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void scheduleDrain() {
+            // only one drain runs at a time, so the subscriber is signaled serially
+            if (pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        private void drain() {
+            while (!cancelled && !done) {
+                if (invalidRequest != null) {
+                    done = true;
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+
+                if (!currentPage.hasNext()) {
+                    if (!pager.hasNext()) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (demand.get() == 0) {
+                        return;
+                    }
+                    if (!readPage()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                if (demand.get() == 0) {
+                    return;
+                }
+                subscriber.onNext(currentPage.next());
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+            }
+        }
+
+        private boolean readPage() {
+            synchronized (fetchLock) {
+                if (cancelled) {
+                    return false;
+                }
+                fetchingThread = Thread.currentThread();
+            }
+
+            try {
+                var items = pager.nextPage();
+                if (!items.isEmpty()) {
+                    pageSigner.sign(items);
+                }
+                currentPage = items.iterator();
+                return true;
+            } catch (IOException | RuntimeException e) {
+                if (!cancelled) {
+                    done = true;
+                    subscriber.onError(e);
+                }
+                return false;
+            } finally {
+                synchronized (fetchLock) {
+                    fetchingThread = null;
+                }
+                if (cancelled) {
+                    // the interrupt of the cancellation must not leak into the next task of the executor
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+}
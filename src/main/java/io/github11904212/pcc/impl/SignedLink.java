@@ -6,6 +6,7 @@ class SignedLink {
 
     private final String href;
     private final ZonedDateTime msftExpiry;
+    private final long msftExpiryMillis;
 
     public SignedLink(
             String href,
@@ -13,6 +14,7 @@ class SignedLink {
     ) {
         this.href = href;
         this.msftExpiry = msftExpiry;
+        this.msftExpiryMillis = msftExpiry.toInstant().toEpochMilli();
     }
 
     public String getHref() {
@@ -23,4 +25,8 @@ class SignedLink {
         return msftExpiry;
     }
 
+    public long getMsftExpiryMillis() {
+        return msftExpiryMillis;
+    }
+
 }
@@ -0,0 +1,35 @@
+package io.github11904212.pcc.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * a flight recorder event of signing one or several items, including fetching their missing tokens.
+ */
+@Name("io.github11904212.pcc.Signing")
+@Label("Signing")
+@Category({"Planetary Computer Client", "Signing"})
+@Description("Signs the assets of one or several items")
+@StackTrace(false)
+final class SigningEvent extends Event {
+
+    @Label("Items")
+    int itemCount;
+
+    @Label("Signed Assets")
+    @Description("The number of signed assets, lazily signed assets are counted when they are created")
+    int assetCount;
+
+    void record(int itemCount, int assetCount) {
+        end();
+        if (shouldCommit()) {
+            this.itemCount = itemCount;
+            this.assetCount = assetCount;
+            commit();
+        }
+    }
+}
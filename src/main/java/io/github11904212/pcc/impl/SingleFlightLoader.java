@@ -0,0 +1,74 @@
+package io.github11904212.pcc.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * coalesces concurrent loads of the same key. only the first caller runs its load,
+ * all other callers wait for its result, or its failure, instead of loading the key again.
+ * @param <V> the type of the loaded values.
+ */
+class SingleFlightLoader<V> {
+
+    private final String description;
+    private final Map<String, CompletableFuture<V>> pendingLoads = new ConcurrentHashMap<>();
+
+    /**
+     * creat a loader.
+     * @param description what is loaded, used in the error messages, e.g. "the sas token".
+     */
+    public SingleFlightLoader(String description) {
+        this.description = description;
+    }
+
+    /**
+     * runs the load of a key, or waits for the load of the key which is already running.
+     * @param key the key of the value.
+     * @param load loads the value, only run if no other load of the key is running.
+     * @return the loaded value.
+     * @throws IOException if the load failed.
+     */
+    public V load(String key, Load<V> load) throws IOException {
+
+        var valueLoad = new CompletableFuture<V>();
+        var pendingLoad = pendingLoads.putIfAbsent(key, valueLoad);
+        if (pendingLoad != null) {
+            return awaitLoad(key, pendingLoad);
+        }
+
+        try {
+            var value = load.load();
+            valueLoad.complete(value);
+            return value;
+        } catch (IOException | RuntimeException e) {
+            valueLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingLoads.remove(key, valueLoad);
+        }
+    }
+
+    private V awaitLoad(String key, CompletableFuture<V> pendingLoad) throws IOException {
+        try {
+            return pendingLoad.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("interrupted while waiting for %s of %s", description, key));
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(String.format("could not load %s of %s", description, key), cause);
+        }
+    }
+
+    @FunctionalInterface
+    interface Load<V> {
+        V load() throws IOException;
+    }
+}
@@ -0,0 +1,218 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.MetricsListener;
+import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.java.stac.client.search.ItemCollection;
+import io.github11904212.java.stac.client.search.dto.QueryParameter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * reads raw json documents of the stac-api, for metadata which is not exposed by the stac-client,
+ * e.g. the storage location of a collection, and for paging through search results.
+ */
+class StacJsonClient {
+
+    private final URL stacEndpoint;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final ObjectMapper mapper;
+    private final MetricsListener metrics;
+
+    public StacJsonClient(PCClientConfig config) {
+        this.stacEndpoint = config.getStacEndpoint();
+        this.requestTimeout = config.getStacRequestTimeout();
+        this.httpClient = config.getHttpClient() != null
+                ? config.getHttpClient()
+                : HttpClient.newBuilder()
+                .connectTimeout(config.getStacConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.mapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.metrics = config.getMetricsListener();
+    }
+
+    /**
+     * the listener of the client, which receives the latency of the pages read through this client.
+     * @return the listener or null if no metrics are recorded.
+     */
+    public MetricsListener getMetricsListener() {
+        return metrics;
+    }
+
+    public Optional<JsonNode> getCollection(String collectionId) throws IOException {
+        var path = String.format("collections/%s", collectionId);
+        var request = HttpRequest.newBuilder(URI.create(stacEndpoint.toString() + path))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        return send(request, path);
+    }
+
+    /**
+     * posts a search to the stac-api.
+     * @param body the search parameters.
+     * @return the first page of the results.
+     * @throws IOException if the search failed.
+     */
+    public JsonNode search(JsonNode body) throws IOException {
+        return mapper.readTree(searchRaw(body));
+    }
+
+    /**
+     * posts a search to the stac-api, without parsing the response.
+     * @param body the search parameters.
+     * @return the raw json of the first page of the results.
+     * @throws IOException if the search failed.
+     */
+    public byte[] searchRaw(JsonNode body) throws IOException {
+        var path = "search";
+        var request = HttpRequest.newBuilder(URI.create(stacEndpoint.toString() + path))
+                .timeout(requestTimeout)
+                .header("Accept", "application/geo+json, application/json")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                .build();
+
+        return sendRaw(request, path)
+                .orElseThrow(() -> new IOException("the search endpoint of the stac-api does not exist"));
+    }
+
+    /**
+     * follows the next link of a page of search results.
+     * @param link the next link.
+     * @param body the body of a POST link, see {@link #nextBody(JsonNode, JsonNode)}.
+     * @return the next page.
+     * @throws IOException if the page could not be read.
+     */
+    public JsonNode followLink(JsonNode link, JsonNode body) throws IOException {
+        var href = link.path("href").asText();
+        var requestBuilder = HttpRequest.newBuilder(URI.create(href))
+                .timeout(requestTimeout)
+                .header("Accept", "application/geo+json, application/json");
+
+        if ("POST".equalsIgnoreCase(link.path("method").asText("GET"))) {
+            requestBuilder
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)));
+        } else {
+            requestBuilder.GET();
+        }
+
+        return send(requestBuilder.build(), href)
+                .orElseThrow(() -> new IOException(String.format("the next page %s does not exist", href)));
+    }
+
+    /**
+     * the body of the request a next link refers to. the body of a POST link is merged into
+     * the previous body if the link requests it.
+     * @param link the next link.
+     * @param previousBody the body of the previous request, can be null.
+     * @return the body to send or null for a GET request.
+     */
+    public JsonNode nextBody(JsonNode link, JsonNode previousBody) {
+        if (!"POST".equalsIgnoreCase(link.path("method").asText("GET"))) {
+            return null;
+        }
+        var linkBody = link.path("body");
+        if (!linkBody.isObject()) {
+            return previousBody;
+        }
+        if (link.path("merge").asBoolean(false) && previousBody != null && previousBody.isObject()) {
+            var merged = ((ObjectNode) previousBody).deepCopy();
+            merged.setAll((ObjectNode) linkBody);
+            return merged;
+        }
+        return linkBody;
+    }
+
+    /**
+     * converts the parameters of a search to json.
+     * @param queryParameter the parameters.
+     * @return the json body of the search.
+     */
+    public ObjectNode toJson(QueryParameter queryParameter) {
+        return mapper.valueToTree(queryParameter);
+    }
+
+    /**
+     * reads the items of a page of search results.
+     * @param page the page.
+     * @return the item collection.
+     * @throws IOException if the page does not contain valid items.
+     */
+    public ItemCollection readItemCollection(JsonNode page) throws IOException {
+        return mapper.treeToValue(page, ItemCollection.class);
+    }
+
+    /**
+     * reads the items of the raw json of a page of search results.
+     * @param page the raw json of the page.
+     * @return the item collection.
+     * @throws IOException if the page does not contain valid items.
+     */
+    public ItemCollection readItemCollection(byte[] page) throws IOException {
+        return mapper.readValue(page, ItemCollection.class);
+    }
+
+    private Optional<JsonNode> send(HttpRequest request, String path) throws IOException {
+        var body = sendRaw(request, path);
+        return body.isPresent() ? Optional.of(mapper.readTree(body.get())) : Optional.empty();
+    }
+
+    /**
+     * the timeout of the request only bounds the wait for the response headers,
+     * so the whole exchange is awaited with the timeout, a stalled body can not block the caller forever.
+     */
+    private Optional<byte[]> sendRaw(HttpRequest request, String path) throws IOException {
+        var pendingResponse = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> response;
+        try {
+            response = pendingResponse.get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            pendingResponse.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("interrupted while requesting %s", path));
+        } catch (TimeoutException e) {
+            pendingResponse.cancel(true);
+            throw new HttpTimeoutException(String.format("the request of %s timed out", path));
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(String.format("the request of %s failed", path), cause);
+        }
+
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException(String.format(
+                    "the stac-api responded with status %d for %s", response.statusCode(), path
+            ));
+        }
+        return Optional.of(response.body());
+    }
+}
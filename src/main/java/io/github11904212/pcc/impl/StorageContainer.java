@@ -0,0 +1,43 @@
+package io.github11904212.pcc.impl;
+
+import java.util.Objects;
+
+/**
+ * a container of an azure storage account, the scope of a sas token.
+ */
+class StorageContainer {
+
+    private final String account;
+    private final String container;
+
+    public StorageContainer(String account, String container) {
+        this.account = account;
+        this.container = container;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public String getContainer() {
+        return container;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StorageContainer that = (StorageContainer) o;
+        return account.equals(that.account) && container.equals(that.container);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(account, container);
+    }
+
+    @Override
+    public String toString() {
+        return account + "/" + container;
+    }
+}
@@ -0,0 +1,245 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.CacheStats;
+import io.github11904212.pcc.dto.SasToken;
+
+import java.time.Clock;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * a size bounded cache of {@link SasToken}s. expired tokens are evicted first,
+ * if the cache is still full the least recently used token is evicted.
+ * the tokens are stored per account and container, so that a lookup does not allocate a key
+ * and the expiry is checked against epoch millis of the given {@link Clock}.
+ * lookups do not lock, stores and removals are serialized and keep the entries ordered by use and by expiry,
+ * so that an eviction does not scan the whole cache.
+ */
+class TokenCache {
+
+    /**
+     * tokens are only handed out if they are valid for at least this time.
+     */
+    static final long EXPIRY_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * the last access of a token is only updated if it is older than this time,
+     * so that concurrent hits of the same token do not all write the shared entry.
+     */
+    static final long ACCESS_RESOLUTION_MILLIS = 1000;
+
+    private static final Comparator<Entry> EXPIRY_ORDER = Comparator
+            .comparingLong((Entry entry) -> entry.expiry)
+            .thenComparingLong(entry -> entry.sequence);
+
+    private final Map<String, Map<String, Entry>> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    // the structural changes of the entries are made while holding the lock
+    private final Object lock = new Object();
+    private final LinkedHashSet<Entry> useOrder = new LinkedHashSet<>();
+    private final TreeSet<Entry> expiryOrder = new TreeSet<>(EXPIRY_ORDER);
+    private long nextSequence = 0;
+
+    private final int maximumSize;
+    private final Clock clock;
+
+    private final CacheStatsRecorder stats = new CacheStatsRecorder();
+
+    public TokenCache(int maximumSize, Clock clock) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("the maximum size of the token cache must be at least 1");
+        }
+        this.maximumSize = maximumSize;
+        this.clock = clock;
+    }
+
+    /**
+     * looks up a token which is valid for at least one more minute.
+     * @param account the storage account of the token.
+     * @param container the container of the token.
+     * @return the token or null if there is no valid token.
+     */
+    public SasToken getValidToken(String account, String container) {
+        return lookup(account, container, true);
+    }
+
+    /**
+     * looks up a token like {@link #getValidToken(String, String)}, without counting a hit or miss.
+     * @param account the storage account of the token.
+     * @param container the container of the token.
+     * @return the token or null if there is no valid token.
+     */
+    public SasToken peekValidToken(String account, String container) {
+        return lookup(account, container, false);
+    }
+
+    /**
+     * the time of the last access to a token.
+     * @param account the storage account of the token.
+     * @param container the container of the token.
+     * @return the time in epoch millis or -1 if the token is not cached.
+     */
+    public long getLastAccess(String account, String container) {
+        var entry = getEntry(account, container);
+        return entry != null ? entry.lastAccess : -1;
+    }
+
+    /**
+     * the time a token was stored.
+     * @param account the storage account of the token.
+     * @param container the container of the token.
+     * @return the time in epoch millis or -1 if the token is not cached.
+     */
+    public long getStoreTime(String account, String container) {
+        var entry = getEntry(account, container);
+        return entry != null ? entry.storeTime : -1;
+    }
+
+    /**
+     * stores a token.
+     * @param account the storage account of the token.
+     * @param container the container of the token.
+     * @param token the token to store.
+     * @param access true if the token is stored for a caller, false if it is renewed in the background.
+     */
+    public void put(String account, String container, SasToken token, boolean access) {
+        var now = clock.millis();
+        synchronized (lock) {
+            var containers = entries.computeIfAbsent(account, key -> new ConcurrentHashMap<>());
+            var previous = containers.get(container);
+            var lastAccess = previous == null || access ? now : previous.lastAccess;
+
+            var entry = new Entry(account, container, token, now, lastAccess, nextSequence++);
+            containers.put(container, entry);
+            if (previous != null) {
+                useOrder.remove(previous);
+                expiryOrder.remove(previous);
+            } else {
+                size.incrementAndGet();
+            }
+            useOrder.add(entry);
+            expiryOrder.add(entry);
+
+            while (size.get() > maximumSize) {
+                evict(now);
+            }
+        }
+    }
+
+    /**
+     * records the loading of a token.
+     * @param loadTime the time spent loading in nanoseconds.
+     */
+    public void recordLoad(long loadTime) {
+        stats.recordLoad(loadTime);
+    }
+
+    public CacheStats getStats() {
+        return stats.snapshot(size.get());
+    }
+
+    private SasToken lookup(String account, String container, boolean recordStats) {
+        var entry = getEntry(account, container);
+        if (entry != null) {
+            var now = clock.millis();
+            if (entry.expiry - EXPIRY_MARGIN_MILLIS > now) {
+                if (now - entry.lastAccess > ACCESS_RESOLUTION_MILLIS) {
+                    entry.lastAccess = now;
+                }
+                if (recordStats) {
+                    stats.recordHit();
+                }
+                return entry.token;
+            }
+            if (entry.expiry <= now) {
+                synchronized (lock) {
+                    remove(entry);
+                }
+            }
+        }
+        if (recordStats) {
+            stats.recordMiss();
+        }
+        return null;
+    }
+
+    private Entry getEntry(String account, String container) {
+        var containers = entries.get(account);
+        return containers != null ? containers.get(container) : null;
+    }
+
+    private void remove(Entry entry) {
+        var containers = entries.get(entry.account);
+        if (containers != null && containers.remove(entry.container, entry)) {
+            useOrder.remove(entry);
+            expiryOrder.remove(entry);
+            size.decrementAndGet();
+            stats.recordEviction();
+            if (containers.isEmpty()) {
+                entries.remove(entry.account, containers);
+            }
+        }
+    }
+
+    /**
+     * evicts the token which expires first if it is expired, otherwise the least recently used token.
+     * lookups do not reorder the entries, so the use order is applied at eviction:
+     * an entry which was used since it was queued is moved to the end instead of evicted.
+     */
+    private void evict(long now) {
+        var expiring = expiryOrder.first();
+        if (expiring.expiry <= now) {
+            remove(expiring);
+            return;
+        }
+
+        // every entry is moved at most once, then the eldest is evicted even if it was used concurrently
+        for (int moved = 0, entryCount = useOrder.size(); ; moved++) {
+            var eldest = useOrder.iterator().next();
+            var lastAccess = eldest.lastAccess;
+            if (lastAccess == eldest.queuedAccess || moved >= entryCount) {
+                remove(eldest);
+                return;
+            }
+            useOrder.remove(eldest);
+            eldest.queuedAccess = lastAccess;
+            useOrder.add(eldest);
+        }
+    }
+
+    private static class Entry {
+        private final String account;
+        private final String container;
+        private final SasToken token;
+        private final long expiry;
+        private final long sequence;
+        private final long storeTime;
+        private volatile long lastAccess;
+        // the last access when the entry was queued in the use order, guarded by the lock
+        private long queuedAccess;
+
+        private Entry(
+                String account,
+                String container,
+                SasToken token,
+                long storeTime,
+                long lastAccess,
+                long sequence
+        ) {
+            this.account = account;
+            this.container = container;
+            this.token = token;
+            this.expiry = token.getMsftExpiry().toInstant().toEpochMilli();
+            this.sequence = sequence;
+            this.storeTime = storeTime;
+            this.lastAccess = lastAccess;
+            this.queuedAccess = lastAccess;
+        }
+    }
+}
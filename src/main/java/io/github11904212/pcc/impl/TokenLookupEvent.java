@@ -0,0 +1,39 @@
+package io.github11904212.pcc.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * a flight recorder event of getting a sas token, from the token cache or the sas-api.
+ * while the event is disabled, its allocation is removed by the jit and a cache hit costs nothing extra.
+ */
+@Name("io.github11904212.pcc.TokenLookup")
+@Label("SAS Token Lookup")
+@Category({"Planetary Computer Client", "Signing"})
+@Description("Gets a SAS token from the token cache or the SAS API")
+@StackTrace(false)
+final class TokenLookupEvent extends Event {
+
+    @Label("Storage Account")
+    String account;
+
+    @Label("Container")
+    String container;
+
+    @Label("Cache Hit")
+    @Description("The token was served from the token cache, otherwise it was fetched or awaited")
+    boolean cacheHit;
+
+    void record(String account, String container) {
+        end();
+        if (shouldCommit()) {
+            this.account = account;
+            this.container = container;
+            commit();
+        }
+    }
+}
@@ -1,55 +1,343 @@
 package io.github11904212.pcc.impl;
 
+import io.github11904212.pcc.MetricsListener;
+import io.github11904212.pcc.dto.CacheStats;
+import io.github11904212.pcc.dto.PCClientConfig;
 import io.github11904212.pcc.dto.SasToken;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.net.URL;
-import java.time.ZonedDateTime;
-import java.util.HashMap;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
-class TokenManager {
+class TokenManager implements AutoCloseable {
 
-    private final URL sasEndpoint;
-    private final ObjectMapper mapper;
-    private final String subscriptionKey;
-    private final Map<String, SasToken> tokenCache = new HashMap<>();
+    /**
+     * a token which does not meet a requested minimum validity is not fetched again within this time,
+     * so that a sas-api issuing tokens shorter than the requested validity is not queried on every request.
+     */
+    static final long MIN_REFETCH_INTERVAL_MILLIS = 5_000;
 
+    private final SasClient sasClient;
+    private final TokenCache tokenCache;
+    private final Clock clock;
+    private final SingleFlightLoader<SasToken> tokenLoader = new SingleFlightLoader<>("the sas token");
+
+    private final Double refreshAhead;
+    private final long refreshIdleTimeoutMillis;
+    private final ScheduledExecutorService refreshScheduler;
+    private final Executor renewalExecutor;
+    // the pending renewal of every token key, so that each token is renewed by one chain of renewals
+    private final Map<String, Renewal> renewals = new ConcurrentHashMap<>();
+    private final MetricsListener metrics;
+    private volatile boolean closed = false;
+
+
+    public TokenManager(PCClientConfig config) {
+        this(config, Clock.systemUTC());
+    }
+
+    TokenManager(PCClientConfig config, Clock clock) {
+        this(config, clock, config.getExecutor());
+    }
+
+    /**
+     * creat a token manager.
+     * @param config the client config.
+     * @param clock the clock of the token expiry.
+     * @param renewalExecutor runs the blocking renewals of the tokens, null for a shared pool of daemon threads.
+     */
+    TokenManager(PCClientConfig config, Clock clock, Executor renewalExecutor) {
+        this.clock = clock;
+        this.sasClient = new SasClient(config);
+        this.tokenCache = new TokenCache(config.getTokenCacheMaximumSize(), clock);
+        this.refreshAhead = config.getTokenRefreshAhead();
+        this.refreshIdleTimeoutMillis = config.getTokenRefreshIdleTimeout().toMillis();
+        this.refreshScheduler = refreshAhead != null ? RefreshScheduler.INSTANCE : null;
+        if (refreshAhead == null) {
+            this.renewalExecutor = null;
+        } else {
+            this.renewalExecutor = renewalExecutor != null ? renewalExecutor : RefreshScheduler.RENEWALS;
+        }
+        this.metrics = config.getMetricsListener();
+    }
 
     public TokenManager(URL sasEndpoint, String subscriptionKey) {
-        this.mapper = new ObjectMapper()
-                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        this.sasEndpoint = sasEndpoint;
-        this.subscriptionKey = subscriptionKey;
+        this(new PCClientConfig(null, sasEndpoint, subscriptionKey));
     }
 
     public SasToken getToken(String account, String container) throws IOException {
 
-        String tokenKey = account + "/" + container;
+        // the hot path, a cache hit must not allocate, the disabled event is removed by escape analysis
+        var event = new TokenLookupEvent();
+        event.begin();
+        try {
+            var cachedToken = tokenCache.getValidToken(account, container);
+            recordLookup(account, container, cachedToken != null);
+            if (cachedToken != null) {
+                event.cacheHit = true;
+                return cachedToken;
+            }
+
+            return loadToken(account, container, () -> sasClient.fetchToken(account, container), false, 0);
+        } finally {
+            event.record(account, container);
+        }
+    }
+
+    /**
+     * gets a token which is valid for at least the given time, a cached token expiring earlier is replaced.
+     */
+    public SasToken getToken(String account, String container, long minValidityMillis) throws IOException {
+
+        var event = new TokenLookupEvent();
+        event.begin();
+        try {
+            var cachedToken = tokenCache.getValidToken(account, container);
+            var valid = cachedToken != null && isValidFor(account, container, cachedToken, minValidityMillis);
+            recordLookup(account, container, valid);
+            if (valid) {
+                event.cacheHit = true;
+                return cachedToken;
+            }
+
+            return loadToken(
+                    account, container, () -> sasClient.fetchToken(account, container), false, minValidityMillis
+            );
+        } finally {
+            event.record(account, container);
+        }
+    }
+
+    /**
+     * fetches the tokens of all given containers which are not cached, concurrently on the executor.
+     */
+    public void prefetch(Collection<StorageContainer> containers, Executor executor) throws IOException {
+        List<StorageContainer> missingContainers = new ArrayList<>();
+        for (var container : containers) {
+            if (tokenCache.peekValidToken(container.getAccount(), container.getContainer()) == null) {
+                missingContainers.add(container);
+            }
+        }
+        if (missingContainers.isEmpty()) {
+            return;
+        }
+        ParallelTasks.forEach(missingContainers, executor,
+                container -> getToken(container.getAccount(), container.getContainer())
+        );
+    }
+
+    public CacheStats getCacheStats() {
+        return tokenCache.getStats();
+    }
+
+    /**
+     * stops the renewal of the cached tokens, the cached tokens can still be used until they expire.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (var renewal : renewals.values()) {
+            renewal.cancel();
+        }
+        renewals.clear();
+    }
+
+    private SasToken loadToken(
+            String account,
+            String container,
+            TokenFetch tokenFetch,
+            boolean renewal,
+            long minValidityMillis
+    ) throws IOException {
+
+        // only one fetch per key is performed, all other callers wait for its result
+        return tokenLoader.load(account + "/" + container, () -> {
+            // the token could have been stored by a fetch which finished in the meantime
+            if (!renewal) {
+                var cachedToken = tokenCache.peekValidToken(account, container);
+                if (cachedToken != null && isValidFor(account, container, cachedToken, minValidityMillis)) {
+                    return cachedToken;
+                }
+            }
+
+            var loadStart = System.nanoTime();
+            SasToken newToken;
+            try {
+                newToken = tokenFetch.fetch();
+            } catch (IOException | RuntimeException e) {
+                recordFetch(account, container, System.nanoTime() - loadStart, false);
+                throw e;
+            }
+            var loadTime = System.nanoTime() - loadStart;
+            tokenCache.recordLoad(loadTime);
+            recordFetch(account, container, loadTime, true);
+            storeToken(account, container, newToken, renewal);
+            return newToken;
+        });
+    }
+
+    private void recordLookup(String account, String container, boolean hit) {
+        if (metrics == null) {
+            return;
+        }
+        if (hit) {
+            metrics.onTokenCacheHit(account, container);
+        } else {
+            metrics.onTokenCacheMiss(account, container);
+        }
+    }
+
+    private void recordFetch(String account, String container, long durationNanos, boolean success) {
+        if (metrics != null) {
+            metrics.onTokenFetch(account, container, durationNanos, success);
+        }
+    }
+
+    /**
+     * whether a token is valid for the given time, or was fetched too recently to be fetched again.
+     */
+    private boolean isValidFor(String account, String container, SasToken token, long minValidityMillis) {
+        if (minValidityMillis <= 0) {
+            return true;
+        }
+        var now = clock.millis();
+        return token.getMsftExpiry().toInstant().toEpochMilli() - minValidityMillis > now
+                || now - tokenCache.getStoreTime(account, container) < MIN_REFETCH_INTERVAL_MILLIS;
+    }
+
+    private void storeToken(String account, String container, SasToken token, boolean renewal) {
+        // a renewal is no usage of the token, otherwise unused tokens would never lapse
+        tokenCache.put(account, container, token, !renewal);
+
+        if (refreshScheduler != null && !closed) {
+            scheduleRenewal(account, container, token);
+        }
+    }
 
-        if (
-                tokenCache.containsKey(tokenKey)   // has token
-                        && tokenCache.get(tokenKey)
-                        .getMsftExpiry().isAfter(ZonedDateTime.now().plusMinutes(1)) // token still valid
-        ) {
-            return tokenCache.get(tokenKey);
+    /**
+     * schedules the renewal of a stored token, a pending renewal of the same token is replaced.
+     */
+    private void scheduleRenewal(String account, String container, SasToken token) {
+        var tokenKey = account + "/" + container;
+        var lifetime = token.getMsftExpiry().toInstant().toEpochMilli() - clock.millis();
+        if (lifetime <= 0) {
+            var expired = renewals.remove(tokenKey);
+            if (expired != null) {
+                expired.cancel();
+            }
+            return;
         }
 
+        var renewal = new Renewal(account, container, tokenKey);
+        var previous = renewals.put(tokenKey, renewal);
+        if (previous != null) {
+            previous.cancel();
+        }
+        renewal.schedule((long) (lifetime * refreshAhead));
+    }
 
-        StringBuilder query = new StringBuilder(sasEndpoint.toString());
-        String tokenPath = String.format("token/%s/%s", account, container);
-        query.append(tokenPath);
+    private void renewToken(Renewal renewal) {
+        var lastAccess = tokenCache.getLastAccess(renewal.account, renewal.container);
+        if (closed || lastAccess < 0 || clock.millis() - lastAccess > refreshIdleTimeoutMillis) {
+            // the token is no longer used, let it lapse
+            renewals.remove(renewal.tokenKey, renewal);
+            return;
+        }
 
-        if (this.subscriptionKey != null) {
-            query.append("?subscription-key=");
-            query.append(this.subscriptionKey);
+        try {
+            // the stored token schedules the next renewal, which replaces this one
+            loadToken(
+                    renewal.account,
+                    renewal.container,
+                    () -> sasClient.fetchToken(renewal.account, renewal.container),
+                    true,
+                    0
+            );
+        } catch (IOException | RuntimeException e) {
+            // the cached token stays in use, once it expires the next caller fetches a new one
+            renewals.remove(renewal.tokenKey, renewal);
         }
+    }
+
+    /**
+     * one scheduler thread is shared by all token managers, so that clients which are not closed leak no threads.
+     * the scheduler only triggers the renewals, the blocking fetches run on the renewal executor,
+     * so that a slow sas-api does not delay the renewals of other tokens.
+     * the renewals of a closed or unused token manager end after at most one token lifetime.
+     */
+    private static final class RefreshScheduler {
+        private static final ScheduledExecutorService INSTANCE = create();
+        private static final Executor RENEWALS = Executors.newCachedThreadPool(
+                new DaemonThreadFactory("pcc-token-renewal")
+        );
+
+        private static ScheduledExecutorService create() {
+            var scheduler = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("pcc-token-refresh"));
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+
+    private class Renewal implements Runnable {
+        private final String account;
+        private final String container;
+        private final String tokenKey;
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean cancelled = false;
+
+        private Renewal(String account, String container, String tokenKey) {
+            this.account = account;
+            this.container = container;
+            this.tokenKey = tokenKey;
+        }
+
+        private void schedule(long delayMillis) {
+            future = refreshScheduler.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+            if (cancelled) {
+                future.cancel(false);
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            var scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                renewalExecutor.execute(() -> {
+                    if (!cancelled) {
+                        renewToken(this);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the executor has been shut down, the cached token lapses
+                renewals.remove(tokenKey, this);
+            }
+        }
+    }
 
-        URL url = new URL(query.toString());
-        var newToken  = mapper.readValue(url, SasToken.class);
-        tokenCache.put(tokenKey, newToken);
-        return newToken;
+    @FunctionalInterface
+    private interface TokenFetch {
+        SasToken fetch() throws IOException;
     }
 }
@@ -0,0 +1,74 @@
+package io.github11904212.pcc.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.MalformedURLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BlobHrefTest {
+
+    private static final String SENTINEL_HREF = "https://sentinel2l2a01.blob.core.windows.net/sentinel2-l2/" +
+            "10/S/EG/2022/08/10/S2B_MSIL2A_20220810T183919_N0400_R070_T10SEG_20220811T235540.SAFE/" +
+            "GRANULE/L2A_T10SEG_A028324_20220810T184635/IMG_DATA/R10m/T10SEG_20220810T183919_B04_10m.tif";
+
+    @Test
+    void parse_whenBlobStorageHref_expectAccountAndContainer() throws Exception {
+        var blobHref = BlobHref.parse(SENTINEL_HREF);
+
+        assertThat(blobHref).isNotNull();
+        assertThat(blobHref.getAccount()).isEqualTo("sentinel2l2a01");
+        assertThat(blobHref.getContainer()).isEqualTo("sentinel2-l2");
+        assertThat(blobHref.getBaseHref()).isSameAs(SENTINEL_HREF);
+    }
+
+    @Test
+    void parse_whenHrefHasQuery_expectQueryRemoved() throws Exception {
+        var blobHref = BlobHref.parse(SENTINEL_HREF + "?st=2022-08-10&se=2022-08-11&sig=abc");
+
+        assertThat(blobHref.getBaseHref()).isEqualTo(SENTINEL_HREF);
+    }
+
+    @Test
+    void parse_whenHrefHasPortAndUserInfo_expectAccount() throws Exception {
+        var blobHref = BlobHref.parse("https://user@storage1.blob.core.windows.net:443/container1/asset1.tif");
+
+        assertThat(blobHref.getAccount()).isEqualTo("storage1");
+        assertThat(blobHref.getContainer()).isEqualTo("container1");
+    }
+
+    @Test
+    void parse_whenNotABlobStorageHref_expectNull() throws Exception {
+        assertThat(BlobHref.parse("https://storage1.not.a.blob.storage/container1/asset1.tif")).isNull();
+        assertThat(BlobHref.parse("https://planetarycomputer.microsoft.com/api/data/v1/item/preview.png?item=1"))
+                .isNull();
+    }
+
+    @Test
+    void parse_whenHrefHasNoProtocol_expectException() {
+        assertThatThrownBy(() -> BlobHref.parse("./asset1.tif"))
+                .isInstanceOf(MalformedURLException.class)
+                .hasMessageContaining("protocol");
+    }
+
+    @Test
+    void parse_whenHrefHasNoStorage_expectException() {
+        assertThatThrownBy(() -> BlobHref.parse("https://.blob.core.windows.net/container1/asset1.tif"))
+                .isInstanceOf(MalformedURLException.class)
+                .hasMessageContaining("storage");
+    }
+
+    @Test
+    void parse_whenHrefHasNoContainer_expectException() {
+        assertThatThrownBy(() -> BlobHref.parse("https://storage1.blob.core.windows.net/asset1.tif"))
+                .isInstanceOf(MalformedURLException.class)
+                .hasMessageContaining("container");
+        assertThatThrownBy(() -> BlobHref.parse("https://storage1.blob.core.windows.net/container1/"))
+                .isInstanceOf(MalformedURLException.class)
+                .hasMessageContaining("container");
+        assertThatThrownBy(() -> BlobHref.parse("https://storage1.blob.core.windows.net?query"))
+                .isInstanceOf(MalformedURLException.class)
+                .hasMessageContaining("container");
+    }
+}
@@ -0,0 +1,144 @@
+package io.github11904212.pcc.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataCacheTest {
+
+    private MutableClock clock;
+    private Queue<Runnable> refreshTasks;
+
+    @BeforeEach
+    void initialize() {
+        clock = new MutableClock(Instant.parse("2022-08-10T12:00:00Z"));
+        refreshTasks = new ArrayDeque<>();
+    }
+
+    @Test
+    void get_whenCached_expectNoLoad() throws IOException {
+        var metadataCache = new MetadataCache(Duration.ofMinutes(10), null, 10, clock, refreshTasks::add);
+        var loads = new AtomicInteger();
+
+        metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+        var collection = metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+
+        assertThat(collection).contains("collection1");
+        var stats = metadataCache.getStats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void get_whenNotExisting_expectEmptyCached() throws IOException {
+        var metadataCache = new MetadataCache(Duration.ofMinutes(10), null, 10, clock, refreshTasks::add);
+        var loads = new AtomicInteger();
+
+        metadataCache.get("collections/c1", () -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        var collection = metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+
+        assertThat(collection).isEmpty();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void get_whenExpired_expectLoad() throws IOException {
+        var metadataCache = new MetadataCache(Duration.ofMinutes(10), null, 10, clock, refreshTasks::add);
+        var loads = new AtomicInteger();
+
+        metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+        clock.advance(Duration.ofMinutes(10));
+        var collection = metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+
+        assertThat(collection).contains("collection2");
+        assertThat(refreshTasks).isEmpty();
+    }
+
+    @Test
+    void get_whenUsedAfterRefreshAhead_expectCachedValueAndOneBackgroundLoad() throws IOException {
+        var metadataCache = new MetadataCache(Duration.ofMinutes(10), 0.5, 10, clock, refreshTasks::add);
+        var loads = new AtomicInteger();
+
+        metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+        clock.advance(Duration.ofMinutes(4));
+        metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+        assertThat(refreshTasks).isEmpty();
+
+        clock.advance(Duration.ofMinutes(2));
+        var collection1 = metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+        var collection2 = metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+
+        assertThat(collection1).contains("collection1");
+        assertThat(collection2).contains("collection1");
+        assertThat(refreshTasks).hasSize(1);
+
+        refreshTasks.poll().run();
+        clock.advance(Duration.ofMinutes(6));
+
+        var collection3 = metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+        assertThat(collection3).withFailMessage("the refreshed entry should not be expired").contains("collection2");
+        assertThat(metadataCache.getStats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void get_whenRefreshFails_expectCachedValueKept() throws IOException {
+        var metadataCache = new MetadataCache(Duration.ofMinutes(10), 0.5, 10, clock, refreshTasks::add);
+
+        metadataCache.get("catalog", () -> Optional.of("catalog1"));
+        clock.advance(Duration.ofMinutes(6));
+        metadataCache.get("catalog", () -> {
+            throw new IOException("stac-api not available");
+        });
+        refreshTasks.poll().run();
+
+        assertThat(metadataCache.get("catalog", () -> Optional.of("catalog2"))).contains("catalog1");
+    }
+
+    @Test
+    void get_whenFirstRefreshFails_expectSecondRefresh() throws IOException {
+        var metadataCache = new MetadataCache(Duration.ofMinutes(10), 0.5, 10, clock, refreshTasks::add);
+
+        metadataCache.get("catalog", () -> Optional.of("catalog1"));
+        clock.advance(Duration.ofMinutes(6));
+        metadataCache.get("catalog", () -> {
+            throw new IOException("stac-api not available");
+        });
+        refreshTasks.poll().run();
+
+        metadataCache.get("catalog", () -> Optional.of("catalog2"));
+        assertThat(refreshTasks).withFailMessage("a failed refresh should not block further refreshes").hasSize(1);
+        refreshTasks.poll().run();
+
+        assertThat(metadataCache.get("catalog", () -> Optional.of("catalog3"))).contains("catalog2");
+    }
+
+    @Test
+    void get_whenFull_expectLeastRecentlyUsedEvicted() throws IOException {
+        var metadataCache = new MetadataCache(Duration.ofMinutes(10), null, 2, clock, refreshTasks::add);
+        var loads = new AtomicInteger();
+
+        metadataCache.get("collections/c1", () -> Optional.of("collection1"));
+        metadataCache.get("collections/c2", () -> Optional.of("collection2"));
+        metadataCache.get("collections/c1", () -> Optional.of("collection1"));
+        metadataCache.get("collections/c3", () -> Optional.of("collection3"));
+
+        metadataCache.get("collections/c1", () -> Optional.of("collection" + loads.incrementAndGet()));
+        metadataCache.get("collections/c2", () -> Optional.of("collection" + loads.incrementAndGet()));
+
+        assertThat(loads).withFailMessage("only the least recently used collection should be evicted").hasValue(1);
+        assertThat(metadataCache.getStats().getSize()).isEqualTo(2);
+    }
+}
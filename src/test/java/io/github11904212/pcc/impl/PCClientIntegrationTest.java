@@ -1,10 +1,19 @@
 package io.github11904212.pcc.impl;
 
+import io.github11904212.pcc.MetricsListener;
 import io.github11904212.pcc.PlanetaryComputerClient;
+import io.github11904212.pcc.dto.AssetSelection;
 import io.github11904212.pcc.dto.PCClientConfig;
+import io.github11904212.pcc.dto.SearchPartitioning;
 import io.github11904212.java.stac.client.search.dto.QueryParameter;
+import io.github11904212.java.stac.client.core.Item;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,9 +21,22 @@ import org.junit.jupiter.api.Timeout;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -100,6 +122,32 @@ class PCClientIntegrationTest {
 
     }
 
+    @Test
+    @Timeout(1)
+    void getCollection_whenMetadataCached_expectOneRequest() throws Exception {
+        var config = new PCClientConfig(
+                mockStacApi.url("").url(),
+                mockSasApi.url("").url()
+        );
+        config.setMetadataCacheTimeToLive(Duration.ofMinutes(10));
+        var cachingClient = new PCClientImpl(config);
+
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/collection.json"))
+                .addHeader("Content-Type", "application/json"));
+
+        var collection1 = cachingClient.getCollection("1234");
+        var collection2 = cachingClient.getCollection("1234");
+
+        assertThat(collection1).isNotEmpty();
+        assertThat(collection2.get()).isSameAs(collection1.get());
+
+        assertThat(mockStacApi.getRequestCount()).isEqualTo(1);
+        var stats = cachingClient.getMetadataCacheStats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+    }
+
     @Test
     @Timeout(1)
     void getCollection_whenStacApiResponseInvalid_expectValidCatalog() {
@@ -175,6 +223,65 @@ class PCClientIntegrationTest {
 
     }
 
+    @Test
+    @Timeout(5)
+    void getItems_whenManyIds_expectChunkedSearchesAndItemsInOrder() throws Exception {
+        var mapper = new ObjectMapper();
+        var template = (ObjectNode) mapper.readTree(readTextFromResource("stac_examples/itemcollection_blob-storage.json"));
+        var feature = (ObjectNode) template.withArray("features").get(0);
+        feature.put("collection", "collection1");
+
+        List<JsonNode> searchBodies = new CopyOnWriteArrayList<>();
+        mockStacApi.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                JsonNode body;
+                try {
+                    body = mapper.readTree(request.getBody().readUtf8());
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(400);
+                }
+                searchBodies.add(body);
+
+                var page = template.deepCopy();
+                var features = page.putArray("features");
+                for (var id : body.path("ids")) {
+                    if (!id.asText().startsWith("missing")) {
+                        features.add(feature.deepCopy().put("id", id.asText()));
+                    }
+                }
+                return new MockResponse()
+                        .setBody(page.toString())
+                        .addHeader("Content-Type", "application/geo+json");
+            }
+        });
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        List<String> itemIds = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            itemIds.add(i % 100 == 50 ? "missing" + i : "item" + i);
+        }
+        itemIds.add("item0");
+
+        var itemBatch = pcClient.getItems("collection1", itemIds);
+
+        assertThat(itemBatch.getMissingIds()).containsExactly("missing50", "missing150", "missing250",
+                "missing350", "missing450", "missing550");
+        assertThat(itemBatch.getItems()).hasSize(594);
+        assertThat(itemBatch.getItems()).extracting(Item::getId).startsWith("item0", "item1", "item2");
+        assertThat(itemBatch.getItems()).extracting(Item::getId).endsWith("item598", "item599");
+        assertThat(itemBatch.getItems()).allSatisfy(item ->
+                assertThat(item.getAsset("visual").get().getHref()).contains(DUMMY_TOKEN)
+        );
+
+        assertThat(searchBodies).hasSize(3);
+        assertThat(searchBodies).allSatisfy(body -> {
+            assertThat(body.path("collections").get(0).asText()).isEqualTo("collection1");
+            assertThat(body.path("ids").size()).isLessThanOrEqualTo(ItemBatchFetcher.IDS_PER_SEARCH);
+        });
+        assertThat(mockSasApi.getRequestCount()).isEqualTo(1);
+    }
+
     @Test
     @Timeout(1)
     void search_whenBlobStorageItemCollection_expectSignedIC() throws Exception {
@@ -200,6 +307,427 @@ class PCClientIntegrationTest {
 
     }
 
+    @Test
+    @Timeout(1)
+    void search_whenMetricsListener_expectPhasesRecorded() throws Exception {
+        List<String> events = new CopyOnWriteArrayList<>();
+        var config = new PCClientConfig(
+                mockStacApi.url("").url(),
+                mockSasApi.url("").url()
+        );
+        config.setMetricsListener(new MetricsListener() {
+            @Override
+            public void onTokenCacheHit(String account, String container) {
+                events.add("hit " + container);
+            }
+
+            @Override
+            public void onTokenCacheMiss(String account, String container) {
+                events.add("miss " + container);
+            }
+
+            @Override
+            public void onTokenFetch(String account, String container, long durationNanos, boolean success) {
+                assertThat(durationNanos).isPositive();
+                events.add("fetch " + container + " " + success);
+            }
+
+            @Override
+            public void onAssetsSigned(int itemCount, int assetCount, long durationNanos) {
+                events.add("signed " + itemCount + " " + assetCount);
+            }
+
+            @Override
+            public void onSearchPage(int itemCount, long durationNanos) {
+                assertThat(durationNanos).isPositive();
+                events.add("page " + itemCount);
+            }
+        });
+        var measuredClient = new PCClientImpl(config);
+
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/itemcollection_blob-storage.json"))
+                .addHeader("Content-Type", "application/json"));
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        var itemCollection = measuredClient.search(new QueryParameter());
+        var signedAssets = itemCollection.getItems().get(0).getAssets().size();
+        var container = BlobHref.parse(itemCollection.getItems().get(0).getAsset("visual").get().getHref())
+                .getContainer();
+
+        assertThat(events).containsExactly(
+                "page 1",
+                "miss " + container,
+                "fetch " + container + " true",
+                "hit " + container,
+                "signed 1 " + signedAssets
+        );
+    }
+
+    @Test
+    @Timeout(1)
+    void search_whenAssetSelectionPruning_expectOnlySelectedAssetsSigned() throws Exception {
+
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/itemcollection_blob-storage.json"))
+                .addHeader("Content-Type", "application/json"));
+
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        var itemCollection = pcClient.search(new QueryParameter(), AssetSelection.keys("visual").pruning());
+        assertThat(itemCollection.getItems()).hasSize(1);
+
+        var assets = itemCollection.getItems().get(0).getAssets();
+        assertThat(assets).containsOnlyKeys("visual");
+        assertThat(assets.get("visual")).isInstanceOf(SignedAssetImpl.class);
+        assertThat(assets.get("visual").getHref()).contains(DUMMY_TOKEN);
+
+    }
+
+    @Test
+    @Timeout(1)
+    void search_whenSearchCached_expectOneRequestAndUnsignedItemsSignedAgain() throws Exception {
+        var config = new PCClientConfig(
+                mockStacApi.url("").url(),
+                mockSasApi.url("").url()
+        );
+        config.setSearchCacheTimeToLive(Duration.ofMinutes(5));
+        var cachingClient = new PCClientImpl(config);
+
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/itemcollection_blob-storage.json"))
+                .addHeader("Content-Type", "application/json"));
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        var queryParameter1 = new QueryParameter();
+        queryParameter1.addCollection("collection1");
+        queryParameter1.addCollection("collection2");
+        var queryParameter2 = new QueryParameter();
+        queryParameter2.addCollection("collection2");
+        queryParameter2.addCollection("collection1");
+
+        var itemCollection1 = cachingClient.search(queryParameter1, AssetSelection.keys("visual").pruning());
+        var itemCollection2 = cachingClient.search(queryParameter2);
+
+        assertThat(itemCollection1.getItems().get(0).getAssets()).containsOnlyKeys("visual");
+        var item2 = itemCollection2.getItems().get(0);
+        assertThat(item2).isNotSameAs(itemCollection1.getItems().get(0));
+        assertThat(item2.getAssets()).containsKeys("visual", "analytic", "thumbnail");
+        assertThat(item2.getAsset("visual").get().getHref()).contains(DUMMY_TOKEN);
+
+        assertThat(mockStacApi.getRequestCount()).isEqualTo(1);
+        assertThat(mockSasApi.getRequestCount()).isEqualTo(1);
+        var stats = cachingClient.getSearchCacheStats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(5)
+    void searchAll_whenSeveralPages_expectAllItemsSignedInOrder() throws Exception {
+        var pageCount = 3;
+        var mapper = new ObjectMapper();
+        var searchRequests = mockSearchPages(pageCount);
+
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        var queryParameter = new QueryParameter();
+        queryParameter.addCollection("collection1");
+        List<Item> items;
+        try (var stream = pcClient.searchAll(queryParameter)) {
+            items = stream.collect(Collectors.toList());
+        }
+
+        assertThat(items).extracting(Item::getId).containsExactly("item1", "item2", "item3");
+        assertThat(items).allSatisfy(item -> assertThat(item.getAsset("visual").get().getHref()).contains(DUMMY_TOKEN));
+
+        assertThat(searchRequests).hasSize(pageCount);
+        assertThat(searchRequests).allSatisfy(request -> {
+            assertThat(request.getMethod()).isEqualTo("POST");
+            assertThat(request.getPath()).isEqualTo("/search");
+        });
+        var lastBody = mapper.readTree(searchRequests.get(pageCount - 1).getBody().readUtf8());
+        assertThat(lastBody.path("token").asText()).isEqualTo("page3");
+        assertThat(lastBody.path("collections").get(0).asText()).isEqualTo("collection1");
+        assertThat(mockSasApi.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(10)
+    void searchAll_whenStreamAbandonedWithoutClose_expectReaderStopped() throws Exception {
+        var executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+        var config = new PCClientConfig(mockStacApi.url("").url(), mockSasApi.url("").url());
+        config.setExecutor(executor);
+        var client = new PCClientImpl(config);
+        var searchRequests = mockSearchPages(100);
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        var items = client.searchAll(new QueryParameter()).limit(1).collect(Collectors.toList());
+
+        assertThat(items).extracting(Item::getId).containsExactly("item1");
+        while (executor.getActiveCount() > 0) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        var requestCount = searchRequests.size();
+        Thread.sleep(200);
+        assertThat(searchRequests).hasSize(requestCount);
+        assertThat(requestCount).isLessThan(100);
+        executor.shutdown();
+    }
+
+    @Test
+    @Timeout(5)
+    void searchAll_whenReaderInterruptedAtLastPage_expectConsumerNotBlocked() throws Exception {
+        var executor = Executors.newSingleThreadExecutor();
+        var config = new PCClientConfig(mockStacApi.url("").url(), mockSasApi.url("").url());
+        config.setExecutor(executor);
+        config.setSearchPrefetchPages(1);
+        var client = new PCClientImpl(config);
+        var searchRequests = mockSearchPages(1);
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        try (var stream = client.searchAll(new QueryParameter())) {
+            // the only page fills the buffer, the reader waits to hand out the end of the pages
+            while (searchRequests.isEmpty() || mockSasApi.getRequestCount() == 0) {
+                Thread.sleep(50);
+            }
+            Thread.sleep(300);
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+
+            var iterator = stream.iterator();
+            assertThat(iterator.next().getId()).isEqualTo("item1");
+            assertThatThrownBy(iterator::hasNext)
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("interrupted");
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void searchAll_whenSingleThreadExecutorAndSeveralContainers_expectNoDeadlock() throws Exception {
+        var executor = Executors.newSingleThreadExecutor();
+        var config = new PCClientConfig(mockStacApi.url("").url(), mockSasApi.url("").url());
+        config.setExecutor(executor);
+        var client = new PCClientImpl(config);
+
+        var page = (ObjectNode) new ObjectMapper()
+                .readTree(readTextFromResource("stac_examples/itemcollection_blob-storage.json"));
+        ((ObjectNode) page.withArray("features").get(0).path("assets").path("analytic"))
+                .put("href", "https://storage1.blob.core.windows.net/container2/analytic.tif");
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(page.toString())
+                .addHeader("Content-Type", "application/geo+json"));
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        // the reader occupies the only thread, the token fetches of both containers run on the waiting reader
+        List<Item> items;
+        try (var stream = client.searchAll(new QueryParameter())) {
+            items = stream.collect(Collectors.toList());
+        }
+
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).getAsset("visual").get().getHref()).contains(DUMMY_TOKEN);
+        assertThat(items.get(0).getAsset("analytic").get().getHref()).contains(DUMMY_TOKEN);
+        assertThat(mockSasApi.getRequestCount()).isEqualTo(2);
+        executor.shutdown();
+    }
+
+    @Test
+    @Timeout(5)
+    void searchPartitioned_whenItemOnPartitionBoundary_expectItemOnce() throws Exception {
+        var mapper = new ObjectMapper();
+        var template = (ObjectNode) mapper.readTree(readTextFromResource("stac_examples/itemcollection_blob-storage.json"));
+
+        List<String> searchedIntervals = new CopyOnWriteArrayList<>();
+        mockStacApi.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String datetime;
+                try {
+                    datetime = mapper.readTree(request.getBody().readUtf8()).path("datetime").asText();
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(400);
+                }
+                searchedIntervals.add(datetime);
+
+                // every partition contains its own item and the item spanning the shared boundaries
+                var page = template.deepCopy();
+                var features = page.withArray("features");
+                var boundaryItem = (ObjectNode) features.get(0).deepCopy();
+                ((ObjectNode) features.get(0)).put("id", "item-" + datetime);
+                boundaryItem.put("id", "boundary-item");
+                ((ObjectNode) boundaryItem.path("properties"))
+                        .putNull("datetime")
+                        .put("start_datetime", "2022-01-01T12:00:00Z")
+                        .put("end_datetime", "2022-01-03T12:00:00Z");
+                features.add(boundaryItem);
+                return new MockResponse()
+                        .setBody(page.toString())
+                        .addHeader("Content-Type", "application/geo+json");
+            }
+        });
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        var queryParameter = new QueryParameter();
+        queryParameter.setDatetime("2022-01-01T00:00:00Z/2022-01-04T00:00:00Z");
+        List<Item> items;
+        try (var stream = pcClient.searchPartitioned(queryParameter, SearchPartitioning.byTime(3).withParallelism(2))) {
+            items = stream.collect(Collectors.toList());
+        }
+
+        assertThat(searchedIntervals).containsExactlyInAnyOrder(
+                "2022-01-01T00:00:00Z/2022-01-02T00:00:00Z",
+                "2022-01-02T00:00:00Z/2022-01-03T00:00:00Z",
+                "2022-01-03T00:00:00Z/2022-01-04T00:00:00Z"
+        );
+        assertThat(items).extracting(Item::getId).containsExactlyInAnyOrder(
+                "item-2022-01-01T00:00:00Z/2022-01-02T00:00:00Z",
+                "item-2022-01-02T00:00:00Z/2022-01-03T00:00:00Z",
+                "item-2022-01-03T00:00:00Z/2022-01-04T00:00:00Z",
+                "boundary-item"
+        );
+        assertThat(items).allSatisfy(item -> assertThat(item.getAsset("visual").get().getHref()).contains(DUMMY_TOKEN));
+    }
+
+    @Test
+    @Timeout(5)
+    void searchPublisher_whenSlowSubscriber_expectPagesReadOnDemand() throws Exception {
+        var pageCount = 3;
+        var searchRequests = mockSearchPages(pageCount);
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        var subscriber = new SlowSubscriber();
+        pcClient.searchPublisher(new QueryParameter()).subscribe(subscriber);
+
+        subscriber.request(1);
+        assertThat(subscriber.items.poll(1, TimeUnit.SECONDS).getId()).isEqualTo("item1");
+        Thread.sleep(200);
+        assertThat(searchRequests)
+                .withFailMessage("the next page must not be read before it is requested")
+                .hasSize(1);
+
+        subscriber.request(1);
+        assertThat(subscriber.items.poll(1, TimeUnit.SECONDS).getId()).isEqualTo("item2");
+        assertThat(subscriber.items.poll(200, TimeUnit.MILLISECONDS))
+                .withFailMessage("only the requested items must be published")
+                .isNull();
+        assertThat(searchRequests).hasSize(2);
+
+        subscriber.request(Long.MAX_VALUE);
+        assertThat(subscriber.items.poll(1, TimeUnit.SECONDS).getAsset("visual").get().getHref())
+                .contains(DUMMY_TOKEN);
+        assertThat(subscriber.completed.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(searchRequests).hasSize(pageCount);
+        assertThat(subscriber.failure).isNull();
+    }
+
+    @Test
+    @Timeout(5)
+    void searchPublisher_whenCancelled_expectNoFurtherPages() throws Exception {
+        var searchRequests = mockSearchPages(10);
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        var subscriber = new SlowSubscriber();
+        pcClient.searchPublisher(new QueryParameter()).subscribe(subscriber);
+
+        subscriber.request(1);
+        assertThat(subscriber.items.poll(1, TimeUnit.SECONDS)).isNotNull();
+        subscriber.subscription.cancel();
+        subscriber.request(5);
+        Thread.sleep(200);
+
+        assertThat(searchRequests).hasSize(1);
+        assertThat(subscriber.items).isEmpty();
+        assertThat(subscriber.completed.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(5)
+    void searchPublisher_whenSubscriberThrows_expectSubscriptionCancelled() throws Exception {
+        var searchRequests = mockSearchPages(10);
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        SlowSubscriber subscriber = new SlowSubscriber() {
+            @Override
+            public void onNext(Item item) {
+                super.onNext(item);
+                throw new IllegalStateException("subscriber failed");
+            }
+        };
+        pcClient.searchPublisher(new QueryParameter()).subscribe(subscriber);
+
+        subscriber.request(1);
+        assertThat(subscriber.items.poll(1, TimeUnit.SECONDS)).isNotNull();
+        subscriber.request(5);
+        Thread.sleep(200);
+
+        assertThat(searchRequests).hasSize(1);
+        assertThat(subscriber.items).isEmpty();
+        assertThat(subscriber.failure).isNull();
+        assertThat(subscriber.completed.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(5)
+    void searchPublisher_whenSearchCanNotBeStarted_expectOnError() {
+        var publisher = new SearchPublisher(
+                () -> {
+                    throw new IllegalArgumentException("invalid query");
+                },
+                page -> {},
+                Runnable::run
+        );
+        var subscriber = new SlowSubscriber();
+
+        publisher.subscribe(subscriber);
+
+        assertThat(subscriber.subscription).isNotNull();
+        assertThat(subscriber.failure)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("invalid query");
+        subscriber.request(1);
+        assertThat(subscriber.items).isEmpty();
+    }
+
+    @Test
+    @Timeout(5)
+    void searchAll_whenPageFails_expectUncheckedException() {
+        mockStacApi.enqueue(new MockResponse().setResponseCode(500));
+
+        try (var stream = pcClient.searchAll(new QueryParameter())) {
+            assertThatThrownBy(() -> stream.collect(Collectors.toList()))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("500");
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void searchAll_whenPageStallsWithinBody_expectTimeout() throws Exception {
+        var config = new PCClientConfig(
+                mockStacApi.url("").url(),
+                mockSasApi.url("").url()
+        );
+        config.setStacRequestTimeout(Duration.ofMillis(500));
+        var timeoutClient = new PCClientImpl(config);
+
+        // the headers arrive at once, the body only one byte every second
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/itemcollection_blob-storage.json"))
+                .addHeader("Content-Type", "application/geo+json")
+                .throttleBody(1, 1, TimeUnit.SECONDS));
+
+        try (var stream = timeoutClient.searchAll(new QueryParameter())) {
+            assertThatThrownBy(() -> stream.collect(Collectors.toList()))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("timed out");
+        }
+        timeoutClient.close();
+    }
+
     @Test
     @Timeout(1)
     void search_whenNonBlobStorageItemCollection_expectNotSignedIC() throws Exception {
@@ -284,6 +812,102 @@ class PCClientIntegrationTest {
     }
 
 
+    @Test
+    @Timeout(1)
+    void warmTokenCache_whenCollectionHasStorage_expectSearchServedFromCache() throws Exception {
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/collection_blob-storage.json"))
+                .addHeader("Content-Type", "application/json"));
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        pcClient.warmTokenCache(List.of("1234"));
+
+        var collectionRequest = mockStacApi.takeRequest();
+        assertThat(collectionRequest.getPath()).isEqualTo("/collections/1234");
+        var tokenRequest = mockSasApi.takeRequest();
+        assertThat(tokenRequest.getPath()).isEqualTo("/token/storage1/container1");
+
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/itemcollection_blob-storage.json"))
+                .addHeader("Content-Type", "application/json"));
+
+        var itemCollection = pcClient.search(new QueryParameter());
+        var asset1 = itemCollection.getItems().get(0).getAsset("visual").get();
+        assertThat(asset1.getHref()).contains(DUMMY_TOKEN);
+
+        assertThat(mockSasApi.getRequestCount())
+                .withFailMessage("the search should be signed with the cached token")
+                .isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(1)
+    void warmTokenCache_whenCollectionHasNoStorage_expectNoTokenRequest() throws Exception {
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/collection.json"))
+                .addHeader("Content-Type", "application/json"));
+
+        pcClient.warmTokenCache(List.of("1234"));
+
+        assertThat(mockStacApi.getRequestCount()).isEqualTo(1);
+        assertThat(mockSasApi.getRequestCount()).isZero();
+    }
+
+    @Test
+    @Timeout(1)
+    void warmTokenCache_whenCollectionNotFound_expectException() {
+        mockStacApi.enqueue(new MockResponse()
+                .setResponseCode(404)
+        );
+
+        assertThatThrownBy(() -> pcClient.warmTokenCache(List.of("1234")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("1234");
+        assertThat(mockSasApi.getRequestCount()).isZero();
+    }
+
+    @Test
+    @Timeout(2)
+    void asyncGetItem_whenBlobStorageItem_expectSignedItem() throws Exception {
+        var asyncClient = new AsyncPCClientImpl(pcClient, Executors.newSingleThreadExecutor());
+
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/item_blob-storage.json"))
+                .addHeader("Content-Type", "application/json"));
+        mockTokenResponse(DUMMY_TOKEN, ZonedDateTime.now().plusMinutes(30));
+
+        var item = asyncClient.getItem("1234", "5678").get();
+
+        assertThat(item).isNotEmpty();
+        assertThat(item.get().getAsset("visual").get().getHref()).contains(DUMMY_TOKEN);
+    }
+
+    @Test
+    @Timeout(2)
+    void asyncGetItems_whenCancelled_expectRequestAbortedAndThreadReleased() throws Exception {
+        var asyncExecutor = Executors.newSingleThreadExecutor();
+        var asyncClient = new AsyncPCClientImpl(pcClient, asyncExecutor);
+
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/itemcollection_blob-storage.json"))
+                .addHeader("Content-Type", "application/json")
+                .setHeadersDelay(3, TimeUnit.SECONDS));
+
+        var itemBatch = asyncClient.getItems("collection1", List.of("item1"));
+        mockStacApi.takeRequest();
+        assertThat(itemBatch.cancel(true)).isTrue();
+
+        assertThat(itemBatch).isCancelled();
+
+        mockStacApi.enqueue(new MockResponse()
+                .setBody(readTextFromResource("stac_examples/collection.json"))
+                .addHeader("Content-Type", "application/json"));
+        var collection = asyncClient.getCollection("1234");
+        assertThat(collection.get(2, TimeUnit.SECONDS))
+                .withFailMessage("the cancelled call should not block the only thread of the executor")
+                .isNotEmpty();
+    }
+
     @Test
     void getStacClientInstance_whenNoConfigProvided_expectValidDefaultConfig() {
         var pcClient = new PCClientImpl();
@@ -293,6 +917,73 @@ class PCClientIntegrationTest {
 
     }
 
+    /**
+     * serves a search with the given number of pages, each containing one item with the id item{page}.
+     * the pages are linked by POST next links with a merged body.
+     */
+    private List<RecordedRequest> mockSearchPages(int pageCount) throws IOException {
+        var template = (ObjectNode) new ObjectMapper()
+                .readTree(readTextFromResource("stac_examples/itemcollection_blob-storage.json"));
+
+        List<RecordedRequest> searchRequests = new CopyOnWriteArrayList<>();
+        mockStacApi.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                searchRequests.add(request);
+                var pageNumber = searchRequests.size();
+                var page = template.deepCopy();
+                ((ObjectNode) page.withArray("features").get(0)).put("id", "item" + pageNumber);
+                if (pageNumber < pageCount) {
+                    var next = page.withArray("links").addObject();
+                    next.put("rel", "next");
+                    next.put("href", mockStacApi.url("search").toString());
+                    next.put("method", "POST");
+                    next.put("merge", true);
+                    next.putObject("body").put("token", "page" + (pageNumber + 1));
+                }
+                return new MockResponse()
+                        .setBody(page.toString())
+                        .addHeader("Content-Type", "application/geo+json");
+            }
+        });
+        return searchRequests;
+    }
+
+    /**
+     * a subscriber which only requests items when told so.
+     */
+    private static class SlowSubscriber implements Flow.Subscriber<Item> {
+
+        private final BlockingQueue<Item> items = new LinkedBlockingQueue<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable failure;
+
+        private void request(long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Item item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failure = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
     private String readTextFromResource(String resource) throws IOException {
         File file = new File(ClassLoader.getSystemResource(resource).getFile());
         return Files.readString(file.toPath());
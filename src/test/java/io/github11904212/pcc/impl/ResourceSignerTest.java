@@ -1,6 +1,7 @@
 package io.github11904212.pcc.impl;
 
 import io.github11904212.pcc.SignedAsset;
+import io.github11904212.pcc.dto.AssetSelection;
 import io.github11904212.pcc.dto.SasToken;
 import io.github11904212.java.stac.client.core.Asset;
 import io.github11904212.java.stac.client.core.Item;
@@ -15,16 +16,30 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.never;
@@ -103,6 +118,333 @@ class ResourceSignerTest {
 
     }
 
+    @Test
+    void signInPlace_whenItemsUnsigned_expectDistinctContainersPrefetched() throws Exception {
+        String token1 = "token1";
+        var date1 = ZonedDateTime.now().plusMinutes(30);
+
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, token1, date1);
+
+        Executor executor = Runnable::run;
+        var items = resourceSigner.signInPlace(List.of(creatItem(), creatItem()), executor);
+
+        for (var item : items) {
+            assertThat(item.getAssets()).hasSize(2);
+            assertThat(item.getAssets().values())
+                    .allSatisfy(asset -> assertThat(asset).isInstanceOf(SignedAsset.class))
+                    .allSatisfy(asset -> assertThat(asset.getHref()).contains(token1));
+        }
+
+        verify(mockTokenManager, times(1))
+                .prefetch(Set.of(new StorageContainer(DEFAULT_STORAGE, DEFAULT_CONTAINER)), executor);
+    }
+
+    @Test
+    void signInPlace_whenSignedInParallel_expectEveryAssetSignedWithItsToken() throws Exception {
+        var date1 = ZonedDateTime.now().plusMinutes(30);
+        when(mockTokenManager.getToken(eq(DEFAULT_STORAGE), anyString()))
+                .thenAnswer(invocation -> new SasToken(
+                        "token-" + invocation.getArgument(1),
+                        date1.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)
+                ));
+
+        var itemCount = 500;
+        var assetsPerItem = 4;
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Map<String, Asset> assets = new HashMap<>();
+            for (int a = 0; a < assetsPerItem; a++) {
+                var href = String.format("https://%s%s/container%d/item%d/asset%d.tif",
+                        DEFAULT_STORAGE, ResourceSigner.BLOB_STORAGE_DOMAIN, a, i, a);
+                assets.put("asset" + a, new AssetImpl(href, "asset" + a, "asset" + a, "image", Collections.emptyList()));
+            }
+            items.add(new ItemImpl("1.0.0", Collections.emptyList(), Collections.emptyList(), assets, "collection1"));
+        }
+        var expectedOrder = new ArrayList<>(items);
+
+        var signingExecutor = new ForkJoinPool(8);
+        try {
+            var parallelSigner = new ResourceSigner(mockTokenManager, signingExecutor, false);
+            var signedItems = parallelSigner.signInPlace(items, Runnable::run);
+
+            assertThat(signedItems).containsExactlyElementsOf(expectedOrder);
+        } finally {
+            signingExecutor.shutdownNow();
+        }
+
+        for (int i = 0; i < itemCount; i++) {
+            var assets = items.get(i).getAssets();
+            assertThat(assets).hasSize(assetsPerItem);
+            for (int a = 0; a < assetsPerItem; a++) {
+                var asset = assets.get("asset" + a);
+                assertThat(asset).isInstanceOf(SignedAsset.class);
+                assertThat(asset.getHref()).isEqualTo(String.format("https://%s%s/container%d/item%d/asset%d.tif?token-container%d",
+                        DEFAULT_STORAGE, ResourceSigner.BLOB_STORAGE_DOMAIN, a, i, a, a));
+            }
+        }
+    }
+
+    @Test
+    void signInPlace_whenLazy_expectAssetSignedOnFirstAccessOnly() throws Exception {
+        String token1 = "token1";
+        var date1 = ZonedDateTime.now().plusMinutes(30);
+
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, token1, date1);
+
+        var lazySigner = new ResourceSigner(mockTokenManager, null, true);
+        var item = lazySigner.signInPlace(creatItem());
+
+        assertThat(item.getAssets().values())
+                .allSatisfy(asset -> assertThat(asset).isInstanceOf(LazySignedAsset.class));
+        verify(mockTokenManager, never()).getToken(any(), any());
+
+        var asset1 = (SignedAsset) item.getAsset("asset1").get();
+        assertThat(asset1.getHref()).isEqualTo(dummyAsset1.getHref() + "?" + token1);
+        assertThat(asset1.getExpiry()).isEqualTo(date1);
+        assertThat(asset1.getHref()).isEqualTo(dummyAsset1.getHref() + "?" + token1);
+        assertThat(asset1.getTitle()).isEqualTo(dummyAsset1.getTitle());
+
+        verify(mockTokenManager, times(1)).getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER);
+        assertThat(((LazySignedAsset) item.getAsset("asset2").get()).isResolved()).isFalse();
+    }
+
+    @Test
+    void toString_whenLazyAssetNotResolved_expectUnsignedHrefWithoutSigning() throws Exception {
+        var lazySigner = new ResourceSigner(mockTokenManager, null, true);
+        var item = lazySigner.signInPlace(creatItem());
+
+        var asset1 = (LazySignedAsset) item.getAsset("asset1").get();
+
+        assertThat(asset1.toString()).contains(dummyAsset1.getHref());
+        assertThat(asset1.isResolved()).isFalse();
+        verify(mockTokenManager, never()).getToken(any(), any());
+    }
+
+    @Test
+    void signInPlace_whenLazyAssetAccessedConcurrently_expectSignedOnce() throws Exception {
+        String token1 = "token1";
+        var date1 = ZonedDateTime.now().plusMinutes(30);
+
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, token1, date1);
+
+        var lazySigner = new ResourceSigner(mockTokenManager, null, true);
+        var items = lazySigner.signInPlace(List.of(creatItem()), Runnable::run);
+        var asset1 = items.get(0).getAsset("asset1").get();
+
+        var threadCount = 16;
+        var executor = Executors.newFixedThreadPool(threadCount);
+        var startSignal = new CountDownLatch(1);
+        List<Future<String>> hrefs = new ArrayList<>();
+        try {
+            for (int t = 0; t < threadCount; t++) {
+                hrefs.add(executor.submit(() -> {
+                    startSignal.await();
+                    return asset1.getHref();
+                }));
+            }
+            startSignal.countDown();
+            for (var href : hrefs) {
+                assertThat(href.get()).isEqualTo(dummyAsset1.getHref() + "?" + token1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(mockTokenManager, times(1)).getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER);
+    }
+
+    @Test
+    void signInPlace_whenLazyAssetHrefMalformed_expectUncheckedException() throws Exception {
+        var malformedHrefAsset = new AssetImpl(
+                String.format("https://storage1%s/asset1.tif", ResourceSigner.BLOB_STORAGE_DOMAIN),
+                "malformedHrefAsset",
+                "malformedHrefAsset",
+                "image",
+                Collections.emptyList()
+        );
+        Map<String, Asset> assets = new HashMap<>();
+        assets.put("malformed", malformedHrefAsset);
+        var item = new ItemImpl("1.0.0", Collections.emptyList(), Collections.emptyList(), assets, "collection1");
+
+        var lazySigner = new ResourceSigner(mockTokenManager, null, true);
+        lazySigner.signInPlace(item);
+
+        assertThatThrownBy(() -> item.getAsset("malformed").get().getHref())
+                .isInstanceOf(UncheckedIOException.class)
+                .hasCauseInstanceOf(MalformedURLException.class);
+    }
+
+    @Test
+    void signInPlace_whenAssetsSelected_expectOthersUnsigned() throws Exception {
+        String token1 = "token1";
+        var date1 = ZonedDateTime.now().plusMinutes(30);
+
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, token1, date1);
+
+        var item = resourceSigner.signInPlace(creatItem(), AssetSelection.keys("asset1"));
+
+        assertThat(item.getAssets()).hasSize(2);
+        assertThat(item.getAsset("asset1").get()).isInstanceOf(SignedAsset.class);
+        assertThat(item.getAsset("asset2").get()).isSameAs(dummyAsset2);
+        verify(mockTokenManager, times(1)).getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER);
+    }
+
+    @Test
+    void signInPlace_whenItemsAndSelectionPruning_expectOthersRemoved() throws Exception {
+        String token1 = "token1";
+        var date1 = ZonedDateTime.now().plusMinutes(30);
+
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, token1, date1);
+
+        var selection = AssetSelection.matching((key, asset) -> key.equals("asset2")).pruning();
+        var items = resourceSigner.signInPlace(List.of(creatItem(), creatItem()), selection, Runnable::run);
+
+        for (var item : items) {
+            assertThat(item.getAssets()).containsOnlyKeys("asset2");
+            assertThat(item.getAsset("asset2").get().getHref()).contains(token1);
+        }
+    }
+
+    @Test
+    void signInPlace_whenLazyAndSelectionByRole_expectOnlyMatchingAssetsWrapped() throws Exception {
+        var dataAsset = new AssetImpl(dummyAsset1.getHref(), "data", "data", "image", List.of("data"));
+        Map<String, Asset> assets = new HashMap<>();
+        assets.put("data", dataAsset);
+        assets.put("asset2", dummyAsset2);
+        var item = new ItemImpl("1.0.0", Collections.emptyList(), Collections.emptyList(), assets, "collection1");
+
+        var lazySigner = new ResourceSigner(mockTokenManager, null, true);
+        lazySigner.signInPlace(List.of(item), AssetSelection.roles("data", "overview"), Runnable::run);
+
+        assertThat(item.getAsset("data").get()).isInstanceOf(LazySignedAsset.class);
+        assertThat(item.getAsset("asset2").get()).isSameAs(dummyAsset2);
+    }
+
+    @Test
+    void sign_whenRenewingAssetExpiresWithinMargin_expectRenewedHref() throws Exception {
+        var margin = Duration.ofMinutes(5);
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, "token1", ZonedDateTime.now().plusMinutes(2));
+        var date2 = ZonedDateTime.now().plusMinutes(30);
+        when(mockTokenManager.getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER, margin.toMillis()))
+                .thenReturn(new SasToken("token2", date2.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+
+        var renewingSigner = new ResourceSigner(mockTokenManager, null, false, margin, false);
+        var signedAsset = renewingSigner.sign(dummyAsset1);
+
+        assertThat(signedAsset).isInstanceOf(RenewingSignedAsset.class);
+        assertThat(signedAsset.getHref()).isEqualTo(dummyAsset1.getHref() + "?token2");
+        assertThat(signedAsset.getExpiry()).isEqualTo(date2);
+        assertThat(signedAsset.getHref()).isEqualTo(dummyAsset1.getHref() + "?token2");
+
+        verify(mockTokenManager, times(1)).getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER, margin.toMillis());
+    }
+
+    @Test
+    void sign_whenRenewingAssetValidBeyondMargin_expectSameHref() throws Exception {
+        var margin = Duration.ofMinutes(5);
+        var date1 = ZonedDateTime.now().plusMinutes(30);
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, "token1", date1);
+
+        var renewingSigner = new ResourceSigner(mockTokenManager, null, false, margin, false);
+        var signedAsset = renewingSigner.sign(dummyAsset1);
+
+        assertThat(signedAsset.getHref()).isEqualTo(dummyAsset1.getHref() + "?token1");
+        assertThat(signedAsset.getExpiry()).isEqualTo(date1);
+        verify(mockTokenManager, never()).getToken(any(), any(), anyLong());
+    }
+
+    @Test
+    void sign_whenRenewedTokenStillWithinMargin_expectNoRenewalOnEveryAccess() throws Exception {
+        var margin = Duration.ofMinutes(5);
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, "token1", ZonedDateTime.now().plusMinutes(2));
+        var date2 = ZonedDateTime.now().plusMinutes(3);
+        when(mockTokenManager.getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER, margin.toMillis()))
+                .thenReturn(new SasToken("token2", date2.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+
+        var renewingSigner = new ResourceSigner(mockTokenManager, null, false, margin, false);
+        var signedAsset = renewingSigner.sign(dummyAsset1);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(signedAsset.getHref()).isEqualTo(dummyAsset1.getHref() + "?token2");
+        }
+
+        verify(mockTokenManager, times(1)).getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER, margin.toMillis());
+    }
+
+    @Test
+    void sign_whenClockReachesRenewalMargin_expectRenewedHref() throws Exception {
+        var margin = Duration.ofMinutes(5);
+        var clock = new MutableClock(Instant.now());
+        var date1 = ZonedDateTime.now().plusMinutes(30);
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, "token1", date1);
+        var date2 = date1.plusMinutes(30);
+        when(mockTokenManager.getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER, margin.toMillis()))
+                .thenReturn(new SasToken("token2", date2.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+
+        var renewingSigner = new ResourceSigner(mockTokenManager, null, false, margin, false, null, clock);
+        var signedAsset = renewingSigner.sign(dummyAsset1);
+        assertThat(signedAsset.getHref()).isEqualTo(dummyAsset1.getHref() + "?token1");
+
+        clock.advance(Duration.ofMinutes(26));
+
+        assertThat(signedAsset.getHref()).isEqualTo(dummyAsset1.getHref() + "?token2");
+        verify(mockTokenManager, times(1)).getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER, margin.toMillis());
+    }
+
+    @Test
+    void sign_whenRenewalFailsAndHrefStillValid_expectCurrentHref() throws Exception {
+        var margin = Duration.ofMinutes(5);
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, "token1", ZonedDateTime.now().plusMinutes(2));
+        when(mockTokenManager.getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER, margin.toMillis()))
+                .thenThrow(new IOException("sas-api not available"));
+
+        var renewingSigner = new ResourceSigner(mockTokenManager, null, false, margin, false);
+        var signedAsset = renewingSigner.sign(dummyAsset1);
+
+        assertThat(signedAsset.getHref()).isEqualTo(dummyAsset1.getHref() + "?token1");
+        assertThat(signedAsset.getHref()).isEqualTo(dummyAsset1.getHref() + "?token1");
+
+        verify(mockTokenManager, times(1)).getToken(DEFAULT_STORAGE, DEFAULT_CONTAINER, margin.toMillis());
+    }
+
+    @Test
+    void signInPlace_whenCompact_expectAssetsShareToken() throws Exception {
+        String token1 = "token1";
+        var date1 = ZonedDateTime.now().plusMinutes(30);
+
+        setupTokenMock(DEFAULT_STORAGE, DEFAULT_CONTAINER, token1, date1);
+
+        var compactSigner = new ResourceSigner(mockTokenManager, null, false, null, true);
+        var items = compactSigner.signInPlace(List.of(creatItem()), Runnable::run);
+
+        var asset1 = items.get(0).getAsset("asset1").get();
+        assertThat(asset1).isInstanceOf(CompactSignedAsset.class);
+        assertThat(asset1.getHref()).isEqualTo(dummyAsset1.getHref() + "?" + token1);
+        assertThat(asset1.getTitle()).isEqualTo(dummyAsset1.getTitle());
+        assertThat(((SignedAsset) asset1).getExpiry()).isEqualTo(date1);
+
+        var asset2 = (SignedAsset) items.get(0).getAsset("asset2").get();
+        assertThat(asset2.getHref()).isEqualTo(dummyAsset2.getHref() + "?" + token1);
+        assertThat(asset2.getExpiry()).isSameAs(((SignedAsset) asset1).getExpiry());
+    }
+
+    @Test
+    void sign_whenCompactAndNotABlobStorageUrl_expectSameHref() throws Exception {
+        var notBlobAsset = new AssetImpl(
+                "https://planetarycomputer.microsoft.com/api/data/v1/item/preview.png",
+                "preview",
+                "preview",
+                "image/png",
+                Collections.emptyList()
+        );
+
+        var compactSigner = new ResourceSigner(mockTokenManager, null, false, null, true);
+        var signedAsset = compactSigner.sign(notBlobAsset);
+
+        assertThat(signedAsset.getHref()).isEqualTo(notBlobAsset.getHref());
+        verify(mockTokenManager, never()).getToken(any(), any());
+    }
+
     @Test
     void sign_whenSignedAssetValid_expectNoDoubleSigning() throws Exception {
         String token1 = "token1";
@@ -0,0 +1,175 @@
+package io.github11904212.pcc.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCacheTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void initialize() {
+        clock = new MutableClock(Instant.parse("2022-08-10T12:00:00Z"));
+    }
+
+    @Test
+    void key_whenParametersInDifferentOrder_expectSameKey() throws IOException {
+        var key1 = SearchCache.key(mapper.readTree(
+                "{\"collections\":[\"landsat\",\"sentinel\"],\"limit\":10,\"bbox\":[1,2,3,4]}"
+        ));
+        var key2 = SearchCache.key(mapper.readTree(
+                "{\"bbox\":[1,2,3,4],\"limit\":10,\"collections\":[\"sentinel\",\"landsat\",\"sentinel\"]}"
+        ));
+        var key3 = SearchCache.key(mapper.readTree(
+                "{\"bbox\":[3,4,1,2],\"limit\":10,\"collections\":[\"sentinel\",\"landsat\"]}"
+        ));
+
+        assertThat(key1).isEqualTo(key2);
+        assertThat(key1).isNotEqualTo(key3);
+    }
+
+    @Test
+    void get_whenCached_expectNoLoad() throws IOException {
+        var searchCache = new SearchCache(Duration.ofMinutes(5), 1024, clock);
+        var loads = new AtomicInteger();
+
+        searchCache.get("search1", () -> page("page" + loads.incrementAndGet()));
+        var page = searchCache.get("search1", () -> page("page" + loads.incrementAndGet()));
+
+        assertThat(new String(page, StandardCharsets.UTF_8)).isEqualTo("page1");
+        assertThat(loads).hasValue(1);
+        var stats = searchCache.getStats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getLoadCount()).isEqualTo(1);
+        assertThat(stats.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    void get_whenExpired_expectLoad() throws IOException {
+        var searchCache = new SearchCache(Duration.ofMinutes(5), 1024, clock);
+        var loads = new AtomicInteger();
+
+        searchCache.get("search1", () -> page("page" + loads.incrementAndGet()));
+        clock.advance(Duration.ofMinutes(5));
+        var page = searchCache.get("search1", () -> page("page" + loads.incrementAndGet()));
+
+        assertThat(new String(page, StandardCharsets.UTF_8)).isEqualTo("page2");
+        assertThat(searchCache.getStats().getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void get_whenFull_expectLeastRecentlyUsedEvicted() throws IOException {
+        // every entry weighs 100 bytes of page and 14 bytes of key
+        var searchCache = new SearchCache(Duration.ofMinutes(5), 250, clock);
+        var loads = new AtomicInteger();
+
+        searchCache.get("search1", () -> new byte[100]);
+        searchCache.get("search2", () -> new byte[100]);
+        searchCache.get("search1", () -> new byte[100]);
+        searchCache.get("search3", () -> new byte[100]);
+
+        searchCache.get("search1", () -> new byte[100 + loads.incrementAndGet()]);
+        searchCache.get("search2", () -> new byte[100 + loads.incrementAndGet()]);
+
+        assertThat(loads).withFailMessage("only the least recently used search should be evicted").hasValue(1);
+        assertThat(searchCache.getStats().getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void get_whenLargerThanCache_expectNotCached() throws IOException {
+        var searchCache = new SearchCache(Duration.ofMinutes(5), 50, clock);
+
+        searchCache.get("search1", () -> new byte[100]);
+
+        assertThat(searchCache.getStats().getSize()).isZero();
+    }
+
+    @Test
+    void get_whenLoadFails_expectExceptionAndNothingCached() {
+        var searchCache = new SearchCache(Duration.ofMinutes(5), 1024, clock);
+
+        assertThatThrownBy(() -> searchCache.get("search1", () -> {
+            throw new IOException("stac-api not available");
+        })).isInstanceOf(IOException.class);
+
+        assertThat(searchCache.getStats().getSize()).isZero();
+    }
+
+    @Test
+    @Timeout(5)
+    void get_whenConcurrentSearches_expectOneLoad() throws Exception {
+        var searchCache = new SearchCache(Duration.ofMinutes(5), 1024, clock);
+        var loads = new AtomicInteger();
+        var loadStarted = new CountDownLatch(1);
+        var releaseLoad = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(4);
+
+        try {
+            var first = CompletableFuture.supplyAsync(() -> get(searchCache, () -> {
+                loads.incrementAndGet();
+                loadStarted.countDown();
+                await(releaseLoad);
+                return page("page1");
+            }), executor);
+            loadStarted.await();
+
+            List<CompletableFuture<byte[]>> others = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                others.add(CompletableFuture.supplyAsync(() -> get(searchCache, () -> {
+                    loads.incrementAndGet();
+                    return page("page2");
+                }), executor));
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+            releaseLoad.countDown();
+
+            assertThat(new String(first.get(), StandardCharsets.UTF_8)).isEqualTo("page1");
+            for (var other : others) {
+                assertThat(new String(other.get(), StandardCharsets.UTF_8)).isEqualTo("page1");
+            }
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] get(SearchCache searchCache, SearchCache.PageLoad load) {
+        try {
+            return searchCache.get("search1", load);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] page(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
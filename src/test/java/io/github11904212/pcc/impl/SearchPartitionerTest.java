@@ -0,0 +1,141 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.SearchPartitioning;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchPartitionerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void partition_whenTimeSlices_expectAdjacentIntervals() {
+        var body = creatBody("2022-01-01T00:00:00Z/2022-01-05T00:00:00Z");
+
+        var partitions = SearchPartitioner.partition(body, SearchPartitioning.byTime(4));
+
+        assertThat(partitions).extracting(partition -> partition.get("datetime").asText()).containsExactly(
+                "2022-01-01T00:00:00Z/2022-01-02T00:00:00Z",
+                "2022-01-02T00:00:00Z/2022-01-03T00:00:00Z",
+                "2022-01-03T00:00:00Z/2022-01-04T00:00:00Z",
+                "2022-01-04T00:00:00Z/2022-01-05T00:00:00Z"
+        );
+        assertThat(partitions).allSatisfy(partition -> {
+            assertThat(partition.get("collections").get(0).asText()).isEqualTo("sentinel-2-l2a");
+            assertThat(partition.get("limit").asInt()).isEqualTo(100);
+        });
+        assertThat(body.get("datetime").asText()).isEqualTo("2022-01-01T00:00:00Z/2022-01-05T00:00:00Z");
+    }
+
+    @Test
+    void partition_whenTimeSlicesAndBboxGrid_expectEveryCombination() {
+        var body = creatBody("2022-01-01T00:00:00Z/2022-01-03T00:00:00Z");
+        body.putArray("bbox").add(0.0).add(40.0).add(20.0).add(50.0);
+
+        var partitions = SearchPartitioner.partition(body, SearchPartitioning.byTime(2).withBboxGrid(2, 1));
+
+        assertThat(partitions).hasSize(4);
+        assertThat(partitions).extracting(partition -> partition.get("bbox").toString()).containsExactly(
+                "[0.0,40.0,10.0,50.0]",
+                "[10.0,40.0,20.0,50.0]",
+                "[0.0,40.0,10.0,50.0]",
+                "[10.0,40.0,20.0,50.0]"
+        );
+        assertThat(partitions.get(1).get("datetime").asText())
+                .isEqualTo("2022-01-01T00:00:00Z/2022-01-02T00:00:00Z");
+        assertThat(partitions.get(2).get("datetime").asText())
+                .isEqualTo("2022-01-02T00:00:00Z/2022-01-03T00:00:00Z");
+    }
+
+    @Test
+    void partition_whenOneSlice_expectSameBody() {
+        var body = creatBody("2022-01-01T00:00:00Z/..");
+
+        assertThat(SearchPartitioner.partition(body, SearchPartitioning.byTime(1))).containsExactly(body);
+    }
+
+    @Test
+    void partition_whenOpenInterval_expectException() {
+        var body = creatBody("2022-01-01T00:00:00Z/..");
+
+        assertThatThrownBy(() -> SearchPartitioner.partition(body, SearchPartitioning.byTime(2)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("open");
+    }
+
+    @Test
+    void partition_whenNoBbox_expectException() {
+        var body = creatBody("2022-01-01T00:00:00Z/2022-01-03T00:00:00Z");
+
+        assertThatThrownBy(() -> SearchPartitioner.partition(body, SearchPartitioning.byTime(1).withBboxGrid(2, 2)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("bbox");
+    }
+
+    @Test
+    void boundaries_whenTimeSlices_expectOnlyItemsTouchingSplitOnBoundary() {
+        var body = creatBody("2022-01-01T00:00:00Z/2022-01-05T00:00:00Z");
+
+        var boundaries = SearchPartitioner.boundaries(body, SearchPartitioning.byTime(4));
+
+        assertThat(boundaries.isOnBoundary(creatFeature("2022-01-02T00:00:00Z"))).isTrue();
+        assertThat(boundaries.isOnBoundary(creatFeature("2022-01-02T06:00:00Z"))).isFalse();
+        assertThat(boundaries.isOnBoundary(creatFeature("2022-01-01T00:00:00Z"))).isFalse();
+        var spanningFeature = creatFeature(null);
+        ((ObjectNode) spanningFeature.get("properties"))
+                .put("start_datetime", "2022-01-02T06:00:00Z")
+                .put("end_datetime", "2022-01-03T06:00:00Z");
+        assertThat(boundaries.isOnBoundary(spanningFeature)).isTrue();
+        assertThat(boundaries.isOnBoundary(creatFeature(null)))
+                .withFailMessage("an item without a datetime must be treated as on a boundary")
+                .isTrue();
+    }
+
+    @Test
+    void boundaries_whenBboxGrid_expectOnlyItemsCrossingSplitLineOnBoundary() {
+        var body = creatBody("2022-01-01T00:00:00Z/2022-01-03T00:00:00Z");
+        body.putArray("bbox").add(0.0).add(40.0).add(20.0).add(50.0);
+
+        var boundaries = SearchPartitioner.boundaries(body, SearchPartitioning.byTime(1).withBboxGrid(2, 1));
+
+        var insideFeature = creatFeature("2022-01-02T00:00:00Z");
+        insideFeature.putArray("bbox").add(1.0).add(41.0).add(5.0).add(45.0);
+        var crossingFeature = creatFeature("2022-01-02T00:00:00Z");
+        crossingFeature.putArray("bbox").add(8.0).add(41.0).add(12.0).add(45.0);
+        assertThat(boundaries.isOnBoundary(insideFeature)).isFalse();
+        assertThat(boundaries.isOnBoundary(crossingFeature)).isTrue();
+        assertThat(boundaries.isOnBoundary(creatFeature("2022-01-02T00:00:00Z"))).isTrue();
+    }
+
+    @Test
+    void findItemsOnBoundary_whenPage_expectKeysOfItemsOnBoundary() {
+        var body = creatBody("2022-01-01T00:00:00Z/2022-01-03T00:00:00Z");
+        var boundaries = SearchPartitioner.boundaries(body, SearchPartitioning.byTime(2));
+        var page = mapper.createObjectNode();
+        page.putArray("features")
+                .add(creatFeature("2022-01-02T00:00:00Z").put("id", "item1"))
+                .add(creatFeature("2022-01-01T06:00:00Z").put("id", "item2"));
+
+        assertThat(boundaries.findItemsOnBoundary(page)).containsExactly("sentinel-2-l2a/item1");
+    }
+
+    private ObjectNode creatBody(String datetime) {
+        var body = mapper.createObjectNode();
+        body.putArray("collections").add("sentinel-2-l2a");
+        body.put("datetime", datetime);
+        body.put("limit", 100);
+        return body;
+    }
+
+    private ObjectNode creatFeature(String datetime) {
+        var feature = mapper.createObjectNode();
+        feature.put("id", "item");
+        feature.put("collection", "sentinel-2-l2a");
+        feature.putObject("properties").put("datetime", datetime);
+        return feature;
+    }
+}
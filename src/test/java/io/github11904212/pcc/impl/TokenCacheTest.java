@@ -0,0 +1,168 @@
+package io.github11904212.pcc.impl;
+
+import io.github11904212.pcc.dto.SasToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenCacheTest {
+
+    private static final String DEFAULT_STORAGE = "storage1";
+
+    private MutableClock clock;
+
+    @BeforeEach
+    void initialize() {
+        clock = new MutableClock(Instant.parse("2022-08-10T12:00:00Z"));
+    }
+
+    @Test
+    void getValidToken_whenTokenCached_expectHit() {
+        var tokenCache = new TokenCache(10, clock);
+        tokenCache.put(DEFAULT_STORAGE, "container1", creatToken("token1", Duration.ofMinutes(30)), true);
+
+        assertThat(tokenCache.getValidToken(DEFAULT_STORAGE, "container1").getToken()).isEqualTo("token1");
+        assertThat(tokenCache.getValidToken(DEFAULT_STORAGE, "container2")).isNull();
+        assertThat(tokenCache.getValidToken("storage2", "container1")).isNull();
+
+        var stats = tokenCache.getStats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(2);
+        assertThat(stats.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    void getValidToken_whenTokenExpiresAfterMargin_expectHit() {
+        var tokenCache = new TokenCache(10, clock);
+        tokenCache.put(DEFAULT_STORAGE, "container1", creatToken("token1", Duration.ofMinutes(30)), true);
+
+        clock.advance(Duration.ofMinutes(29).minusMillis(1));
+
+        assertThat(tokenCache.getValidToken(DEFAULT_STORAGE, "container1")).isNotNull();
+    }
+
+    @Test
+    void getValidToken_whenTokenExpiresWithinMargin_expectMissWithoutEviction() {
+        var tokenCache = new TokenCache(10, clock);
+        tokenCache.put(DEFAULT_STORAGE, "container1", creatToken("token1", Duration.ofMinutes(30)), true);
+
+        clock.advance(Duration.ofMinutes(29));
+
+        assertThat(tokenCache.getValidToken(DEFAULT_STORAGE, "container1")).isNull();
+
+        var stats = tokenCache.getStats();
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getEvictionCount()).isZero();
+        assertThat(stats.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    void getValidToken_whenTokenExpired_expectEviction() {
+        var tokenCache = new TokenCache(10, clock);
+        tokenCache.put(DEFAULT_STORAGE, "container1", creatToken("token1", Duration.ofMinutes(30)), true);
+
+        clock.advance(Duration.ofMinutes(30));
+
+        assertThat(tokenCache.getValidToken(DEFAULT_STORAGE, "container1")).isNull();
+
+        var stats = tokenCache.getStats();
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getEvictionCount()).isEqualTo(1);
+        assertThat(stats.getSize()).isZero();
+    }
+
+    @Test
+    void put_whenCacheFull_expectExpiredTokenEvictedFirst() {
+        var tokenCache = new TokenCache(2, clock);
+        tokenCache.put(DEFAULT_STORAGE, "container1", creatToken("token1", Duration.ofMinutes(30)), true);
+        tokenCache.put(DEFAULT_STORAGE, "container2", creatToken("token2", Duration.ofMinutes(-30)), true);
+        tokenCache.put(DEFAULT_STORAGE, "container3", creatToken("token3", Duration.ofMinutes(30)), true);
+
+        assertThat(tokenCache.getValidToken(DEFAULT_STORAGE, "container1")).isNotNull();
+        assertThat(tokenCache.getValidToken(DEFAULT_STORAGE, "container3")).isNotNull();
+        assertThat(tokenCache.getStats().getEvictionCount()).isEqualTo(1);
+        assertThat(tokenCache.getStats().getSize()).isEqualTo(2);
+    }
+
+    @Test
+    void put_whenCacheFull_expectLeastRecentlyUsedTokenEvicted() {
+        var tokenCache = new TokenCache(2, clock);
+        tokenCache.put(DEFAULT_STORAGE, "container1", creatToken("token1", Duration.ofMinutes(30)), true);
+        clock.advance(Duration.ofSeconds(2));
+        tokenCache.put(DEFAULT_STORAGE, "container2", creatToken("token2", Duration.ofMinutes(30)), true);
+        clock.advance(Duration.ofSeconds(2));
+        tokenCache.getValidToken(DEFAULT_STORAGE, "container1");
+        clock.advance(Duration.ofSeconds(2));
+        tokenCache.put(DEFAULT_STORAGE, "container3", creatToken("token3", Duration.ofMinutes(30)), true);
+
+        assertThat(tokenCache.getValidToken(DEFAULT_STORAGE, "container1")).isNotNull();
+        assertThat(tokenCache.getValidToken(DEFAULT_STORAGE, "container2")).isNull();
+        assertThat(tokenCache.getValidToken(DEFAULT_STORAGE, "container3")).isNotNull();
+        assertThat(tokenCache.getStats().getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void put_whenManyAccountsEvicted_expectSizeBounded() {
+        var tokenCache = new TokenCache(10, clock);
+        for (int i = 0; i < 1000; i++) {
+            tokenCache.put("storage" + i, "container1", creatToken("token" + i, Duration.ofMinutes(30)), true);
+            clock.advance(Duration.ofMillis(1));
+        }
+
+        assertThat(tokenCache.getValidToken("storage999", "container1")).isNotNull();
+        assertThat(tokenCache.getValidToken("storage989", "container1")).isNull();
+        assertThat(tokenCache.getStats().getEvictionCount()).isEqualTo(990);
+        assertThat(tokenCache.getStats().getSize()).isEqualTo(10);
+    }
+
+    @Test
+    void getValidToken_whenAccessedWithinResolution_expectLastAccessKept() {
+        var tokenCache = new TokenCache(10, clock);
+        tokenCache.put(DEFAULT_STORAGE, "container1", creatToken("token1", Duration.ofMinutes(30)), true);
+        var lastAccess = tokenCache.getLastAccess(DEFAULT_STORAGE, "container1");
+
+        clock.advance(Duration.ofMillis(TokenCache.ACCESS_RESOLUTION_MILLIS));
+        tokenCache.getValidToken(DEFAULT_STORAGE, "container1");
+        assertThat(tokenCache.getLastAccess(DEFAULT_STORAGE, "container1")).isEqualTo(lastAccess);
+
+        clock.advance(Duration.ofMillis(1));
+        tokenCache.getValidToken(DEFAULT_STORAGE, "container1");
+        assertThat(tokenCache.getLastAccess(DEFAULT_STORAGE, "container1")).isEqualTo(clock.millis());
+    }
+
+    @Test
+    void put_whenTokenRenewed_expectLastAccessKept() {
+        var tokenCache = new TokenCache(10, clock);
+        tokenCache.put(DEFAULT_STORAGE, "container1", creatToken("token1", Duration.ofMinutes(30)), true);
+        var lastAccess = tokenCache.getLastAccess(DEFAULT_STORAGE, "container1");
+
+        clock.advance(Duration.ofMinutes(10));
+        tokenCache.put(DEFAULT_STORAGE, "container1", creatToken("token2", Duration.ofMinutes(30)), false);
+
+        assertThat(tokenCache.getLastAccess(DEFAULT_STORAGE, "container1")).isEqualTo(lastAccess);
+        assertThat(tokenCache.getStats().getSize()).isEqualTo(1);
+    }
+
+    @Test
+    void recordLoad_whenTokensLoaded_expectLoadStatistics() {
+        var tokenCache = new TokenCache(10, clock);
+        tokenCache.recordLoad(1_000_000);
+        tokenCache.recordLoad(2_000_000);
+
+        var stats = tokenCache.getStats();
+        assertThat(stats.getLoadCount()).isEqualTo(2);
+        assertThat(stats.getTotalLoadTime().toMillis()).isEqualTo(3);
+    }
+
+    private SasToken creatToken(String token, Duration validity) {
+        var expiry = ZonedDateTime.ofInstant(clock.instant().plus(validity), ZoneOffset.UTC);
+        return new SasToken(token, expiry.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+    }
+}
@@ -1,16 +1,33 @@
 package io.github11904212.pcc.impl;
 
+import io.github11904212.pcc.dto.PCClientConfig;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -46,6 +63,34 @@ class TokenManagerTest {
     }
 
 
+    @Test
+    @Timeout(5)
+    void getToken_whenFlightRecording_expectTokenLookupEvents() throws Exception {
+        mockTokenResponse(dummyToken, ZonedDateTime.now().plusMinutes(30));
+
+        var recordingFile = Files.createTempFile("token-lookup", ".jfr");
+        try (var recording = new Recording()) {
+            recording.enable("io.github11904212.pcc.TokenLookup").withThreshold(Duration.ZERO);
+            recording.start();
+
+            tokenManager.getToken(dummyAccount, dummyContainer);
+            tokenManager.getToken(dummyAccount, dummyContainer);
+
+            recording.stop();
+            recording.dump(recordingFile);
+
+            var events = RecordingFile.readAllEvents(recordingFile);
+            assertThat(events).hasSize(2);
+            assertThat(events).allSatisfy(event -> {
+                assertThat(event.getString("account")).isEqualTo(dummyAccount);
+                assertThat(event.getString("container")).isEqualTo(dummyContainer);
+            });
+            assertThat(events).extracting(event -> event.getBoolean("cacheHit")).containsExactly(false, true);
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+
     @Test
     @Timeout(1)
     void getToken_whenSameAccountAndContainer_expectOneApiCall() throws Exception {
@@ -69,6 +114,259 @@ class TokenManagerTest {
                 .isEqualTo("GET");
     }
 
+    @Test
+    @Timeout(10)
+    void getToken_whenManyThreadsRequestSameKeys_expectOneApiCallPerKey() throws Exception {
+        var threadCount = 32;
+        var containerCount = 4;
+        var callsPerThread = 50;
+
+        Map<String, AtomicInteger> requestsPerPath = new ConcurrentHashMap<>();
+        mockApi.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requestsPerPath.computeIfAbsent(request.getPath(), path -> new AtomicInteger())
+                        .incrementAndGet();
+                String body = String.format(TOKEN_TEMPLATE,
+                        ZonedDateTime.now().plusMinutes(30).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME),
+                        dummyToken
+                );
+                return new MockResponse()
+                        .setBody(body)
+                        .addHeader("Content-Type", "application/json")
+                        .setBodyDelay(50, TimeUnit.MILLISECONDS);
+            }
+        });
+
+        var executor = Executors.newFixedThreadPool(threadCount);
+        var startSignal = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threadCount; t++) {
+                results.add(executor.submit(() -> {
+                    startSignal.await();
+                    for (int i = 0; i < callsPerThread; i++) {
+                        var container = "container" + (i % containerCount);
+                        assertThat(tokenManager.getToken(dummyAccount, container).getToken())
+                                .isEqualTo(dummyToken);
+                    }
+                    return null;
+                }));
+            }
+            startSignal.countDown();
+            for (var result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(mockApi.getRequestCount())
+                .withFailMessage("only one query per account and container should be performed")
+                .isEqualTo(containerCount);
+        assertThat(requestsPerPath).hasSize(containerCount);
+        assertThat(requestsPerPath.values())
+                .allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+    }
+
+    @Test
+    @Timeout(1)
+    void getToken_whenCachedTokenExpiresWithinMinValidity_expectNewToken() throws Exception {
+        var clock = new MutableClock(Instant.now());
+        var clockTokenManager = new TokenManager(new PCClientConfig(null, mockApi.url("").url()), clock);
+        mockTokenResponse("token1", ZonedDateTime.now().plusMinutes(3));
+        mockTokenResponse("token2", ZonedDateTime.now().plusMinutes(30));
+
+        assertThat(clockTokenManager.getToken(dummyAccount, dummyContainer).getToken()).isEqualTo("token1");
+        assertThat(clockTokenManager.getToken(dummyAccount, dummyContainer, TimeUnit.MINUTES.toMillis(2)).getToken())
+                .isEqualTo("token1");
+        // a token which was just fetched is not fetched again for a longer validity
+        clock.advance(Duration.ofMillis(TokenManager.MIN_REFETCH_INTERVAL_MILLIS));
+        assertThat(clockTokenManager.getToken(dummyAccount, dummyContainer, TimeUnit.MINUTES.toMillis(5)).getToken())
+                .isEqualTo("token2");
+        assertThat(clockTokenManager.getToken(dummyAccount, dummyContainer).getToken()).isEqualTo("token2");
+
+        assertThat(mockApi.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    @Timeout(5)
+    void prefetch_whenSomeContainersCached_expectOnlyMissingTokensFetched() throws Exception {
+        mockApi.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String body = String.format(TOKEN_TEMPLATE,
+                        ZonedDateTime.now().plusMinutes(30).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME),
+                        dummyToken
+                );
+                return new MockResponse()
+                        .setBody(body)
+                        .addHeader("Content-Type", "application/json");
+            }
+        });
+
+        tokenManager.getToken(dummyAccount, "container0");
+
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            tokenManager.prefetch(List.of(
+                    new StorageContainer(dummyAccount, "container0"),
+                    new StorageContainer(dummyAccount, "container1"),
+                    new StorageContainer(dummyAccount, "container2"),
+                    new StorageContainer("storage2", "container0")
+            ), executor);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(mockApi.getRequestCount())
+                .withFailMessage("only the tokens of uncached containers should be fetched")
+                .isEqualTo(4);
+
+        tokenManager.getToken(dummyAccount, "container2");
+        tokenManager.getToken("storage2", "container0");
+        assertThat(mockApi.getRequestCount()).isEqualTo(4);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenRefreshAheadEnabled_expectRenewalInBackground() throws Exception {
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setTokenRefreshAhead(0.01);
+        var refreshingTokenManager = new TokenManager(config);
+
+        mockTokenResponse(dummyToken, ZonedDateTime.now().plusSeconds(70));
+        var token2 = "token2";
+        mockTokenResponse(token2, ZonedDateTime.now().plusMinutes(30));
+
+        var sasToken1 = refreshingTokenManager.getToken(dummyAccount, dummyContainer);
+        assertThat(sasToken1.getToken()).isEqualTo(dummyToken);
+
+        while (mockApi.getRequestCount() < 2) {
+            Thread.sleep(50);
+        }
+        // the renewed token is stored after the response has been read
+        Thread.sleep(200);
+
+        var sasToken2 = refreshingTokenManager.getToken(dummyAccount, dummyContainer);
+        assertThat(sasToken2.getToken()).isEqualTo(token2);
+
+        assertThat(mockApi.getRequestCount())
+                .withFailMessage("the renewal should be the only additional query")
+                .isEqualTo(2);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenRefreshAheadEnabled_expectRenewalOnExecutor() throws Exception {
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setTokenRefreshAhead(0.01);
+        var executedRenewals = new AtomicInteger();
+        var delegate = Executors.newSingleThreadExecutor();
+        config.setExecutor(task -> {
+            executedRenewals.incrementAndGet();
+            delegate.execute(task);
+        });
+        var refreshingTokenManager = new TokenManager(config);
+
+        mockTokenResponse(dummyToken, ZonedDateTime.now().plusSeconds(70));
+        mockTokenResponse("token2", ZonedDateTime.now().plusMinutes(30));
+
+        refreshingTokenManager.getToken(dummyAccount, dummyContainer);
+
+        while (mockApi.getRequestCount() < 2) {
+            Thread.sleep(50);
+        }
+
+        assertThat(executedRenewals.get())
+                .withFailMessage("the renewal should be fetched on the executor, not on the scheduler thread")
+                .isEqualTo(1);
+        delegate.shutdown();
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenTokenNotUsedWithinIdleTimeout_expectNoRenewal() throws Exception {
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setTokenRefreshAhead(0.01);
+        config.setTokenRefreshIdleTimeout(Duration.ZERO);
+        var refreshingTokenManager = new TokenManager(config);
+
+        mockTokenResponse(dummyToken, ZonedDateTime.now().plusSeconds(70));
+
+        refreshingTokenManager.getToken(dummyAccount, dummyContainer);
+
+        Thread.sleep(1500);
+
+        assertThat(mockApi.getRequestCount())
+                .withFailMessage("an unused token should not be renewed")
+                .isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenMinValidityLongerThanIssuedTokens_expectNoRefetchWithinInterval() throws Exception {
+        var clock = new MutableClock(Instant.now());
+        var clockTokenManager = new TokenManager(new PCClientConfig(null, mockApi.url("").url()), clock);
+        var minValidity = Duration.ofMinutes(10).toMillis();
+
+        mockTokenResponse(dummyToken, ZonedDateTime.now().plusMinutes(8));
+        mockTokenResponse("token2", ZonedDateTime.now().plusMinutes(9));
+        clockTokenManager.getToken(dummyAccount, dummyContainer);
+        clock.advance(Duration.ofMillis(TokenManager.MIN_REFETCH_INTERVAL_MILLIS));
+
+        var sasToken1 = clockTokenManager.getToken(dummyAccount, dummyContainer, minValidity);
+        var sasToken2 = clockTokenManager.getToken(dummyAccount, dummyContainer, minValidity);
+
+        assertThat(sasToken1.getToken()).isEqualTo("token2");
+        assertThat(sasToken2.getToken()).isEqualTo("token2");
+        assertThat(mockApi.getRequestCount())
+                .withFailMessage("a token fetched for a minimum validity should not be fetched again at once")
+                .isEqualTo(2);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenTokenFetchedForMinValidity_expectOneRenewalChain() throws Exception {
+        var clock = new MutableClock(Instant.now());
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setTokenRefreshAhead(0.02);
+        var refreshingTokenManager = new TokenManager(config, clock);
+
+        // the first token is renewed after 1.4 seconds, the second after 1.2 seconds of the advanced clock
+        for (int i = 0; i < 4; i++) {
+            mockTokenResponse(dummyToken, ZonedDateTime.now().plusSeconds(70));
+        }
+        refreshingTokenManager.getToken(dummyAccount, dummyContainer);
+        clock.advance(Duration.ofSeconds(10));
+        refreshingTokenManager.getToken(dummyAccount, dummyContainer, Duration.ofSeconds(65).toMillis());
+
+        Thread.sleep(2000);
+
+        assertThat(mockApi.getRequestCount())
+                .withFailMessage("the token should be renewed by the chain of the last fetch only")
+                .isEqualTo(3);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenClosed_expectNoRenewal() throws Exception {
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setTokenRefreshAhead(0.01);
+        var refreshingTokenManager = new TokenManager(config);
+
+        mockTokenResponse(dummyToken, ZonedDateTime.now().plusSeconds(70));
+
+        refreshingTokenManager.getToken(dummyAccount, dummyContainer);
+        refreshingTokenManager.close();
+
+        Thread.sleep(1500);
+
+        assertThat(mockApi.getRequestCount())
+                .withFailMessage("a closed token manager should not renew its tokens")
+                .isEqualTo(1);
+    }
+
     @Test
     @Timeout(1)
     void sign_whenAssetsOfDifferentContainers_expectMultipleApiCalls() throws Exception {
@@ -119,6 +417,175 @@ class TokenManagerTest {
 
     }
 
+    @Test
+    @Timeout(5)
+    void getToken_whenManyContainers_expectReusedConnection() throws Exception {
+        var containerCount = 10;
+        for (int i = 0; i < containerCount; i++) {
+            mockTokenResponse(dummyToken, ZonedDateTime.now().plusMinutes(30));
+        }
+
+        for (int i = 0; i < containerCount; i++) {
+            tokenManager.getToken(dummyAccount, "container" + i);
+        }
+
+        assertThat(mockApi.getRequestCount()).isEqualTo(containerCount);
+
+        RecordedRequest lastRequest = null;
+        for (int i = 0; i < containerCount; i++) {
+            lastRequest = mockApi.takeRequest();
+        }
+        assertThat(lastRequest.getSequenceNumber())
+                .withFailMessage("the requests should be performed over one kept-alive connection")
+                .isEqualTo(containerCount - 1);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenApiDoesNotRespond_expectTimeout() {
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setSasRequestTimeout(Duration.ofMillis(200));
+        var timeoutTokenManager = new TokenManager(config);
+
+        mockApi.enqueue(new MockResponse()
+                .setSocketPolicy(SocketPolicy.NO_RESPONSE));
+
+        assertThatThrownBy(() -> timeoutTokenManager.getToken(dummyAccount, dummyContainer))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenApiStallsWithinBody_expectTimeout() {
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setSasRequestTimeout(Duration.ofMillis(500));
+        var timeoutTokenManager = new TokenManager(config);
+
+        // the headers arrive at once, the body only one byte every second
+        var body = String.format(TOKEN_TEMPLATE,
+                ZonedDateTime.now().plusMinutes(30).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME), dummyToken
+        );
+        mockApi.enqueue(new MockResponse()
+                .setBody(body)
+                .addHeader("Content-Type", "application/json")
+                .throttleBody(1, 1, TimeUnit.SECONDS));
+
+        assertThatThrownBy(() -> timeoutTokenManager.getToken(dummyAccount, dummyContainer))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenApiThrottles_expectRetryAfterDelay() throws Exception {
+        mockApi.enqueue(new MockResponse()
+                .setResponseCode(429)
+                .addHeader("Retry-After", "1"));
+        mockTokenResponse(dummyToken, ZonedDateTime.now().plusMinutes(30));
+
+        var start = System.nanoTime();
+        var sasToken = tokenManager.getToken(dummyAccount, dummyContainer);
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(sasToken.getToken()).isEqualTo(dummyToken);
+        assertThat(mockApi.getRequestCount())
+                .withFailMessage("the throttled query should be retried once")
+                .isEqualTo(2);
+        assertThat(elapsed)
+                .withFailMessage("the retry should wait for the Retry-After delay")
+                .isGreaterThanOrEqualTo(Duration.ofMillis(900));
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenApiThrottlesWithoutRetryAfter_expectBackoff() throws Exception {
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setSasRetryBaseDelay(Duration.ofMillis(10));
+        var retryingTokenManager = new TokenManager(config);
+
+        mockApi.enqueue(new MockResponse().setResponseCode(429));
+        mockApi.enqueue(new MockResponse().setResponseCode(503));
+        mockTokenResponse(dummyToken, ZonedDateTime.now().plusMinutes(30));
+
+        var sasToken = retryingTokenManager.getToken(dummyAccount, dummyContainer);
+
+        assertThat(sasToken.getToken()).isEqualTo(dummyToken);
+        assertThat(mockApi.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenRetryAfterExceedsMaxDelay_expectMaxDelay() throws Exception {
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setSasRetryMaxDelay(Duration.ofMillis(100));
+        var retryingTokenManager = new TokenManager(config);
+
+        mockApi.enqueue(new MockResponse()
+                .setResponseCode(429)
+                .addHeader("Retry-After", "86400"));
+        mockTokenResponse(dummyToken, ZonedDateTime.now().plusMinutes(30));
+
+        var sasToken = retryingTokenManager.getToken(dummyAccount, dummyContainer);
+
+        assertThat(sasToken.getToken()).isEqualTo(dummyToken);
+        assertThat(mockApi.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenApiNotImplemented_expectNoRetry() {
+        mockApi.enqueue(new MockResponse().setResponseCode(501));
+        mockTokenResponse(dummyToken, ZonedDateTime.now().plusMinutes(30));
+
+        assertThatThrownBy(() -> tokenManager.getToken(dummyAccount, dummyContainer))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("501");
+        assertThat(mockApi.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenApiKeepsThrottling_expectExceptionAfterMaxRetries() {
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setSasRetryBaseDelay(Duration.ofMillis(10));
+        config.setSasMaxRetries(2);
+        var retryingTokenManager = new TokenManager(config);
+
+        for (int i = 0; i < 3; i++) {
+            mockApi.enqueue(new MockResponse()
+                    .setResponseCode(429)
+                    .addHeader("Retry-After", "0"));
+        }
+
+        assertThatThrownBy(() -> retryingTokenManager.getToken(dummyAccount, dummyContainer))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("429");
+        assertThat(mockApi.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    @Timeout(5)
+    void getToken_whenRateLimited_expectQueuedRequests() throws Exception {
+        var config = new PCClientConfig(null, mockApi.url("").url());
+        config.setSasRequestsPerSecond(5.0);
+        var limitedTokenManager = new TokenManager(config);
+
+        var containerCount = 10;
+        for (int i = 0; i < containerCount; i++) {
+            mockTokenResponse(dummyToken, ZonedDateTime.now().plusMinutes(30));
+        }
+
+        var start = System.nanoTime();
+        for (int i = 0; i < containerCount; i++) {
+            limitedTokenManager.getToken(dummyAccount, "container" + i);
+        }
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(mockApi.getRequestCount()).isEqualTo(containerCount);
+        assertThat(elapsed)
+                .withFailMessage("5 requests exceed the burst and should be delayed by 200ms each")
+                .isGreaterThanOrEqualTo(Duration.ofMillis(900));
+    }
+
     @Test
     @Timeout(1)
     void sign_whenSubscriptionKeyProvided_expectUsageOfKey() throws Exception {